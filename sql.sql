@@ -63,5 +63,10 @@ create table chat_history
     parentId   bigint  null comment '父消息id（用于上下文关联）',
     INDEX idx_appId (appId),                       -- 提升基于应用的查询性能
     INDEX idx_createTime (createTime),             -- 提升基于时间的查询性能
-    INDEX idx_appId_createTime (appId, createTime) -- 游标查询核心索引
+    INDEX idx_appId_createTime (appId, createTime), -- 游标查询核心索引
+    INDEX idx_appId_isDelete_createTime_meta (appId, isDelete, createTime, id, messageType, userId) -- 只查元数据时的覆盖索引
 ) comment '对话历史' collate = utf8mb4_unicode_ci;
+
+-- 已有数据库升级：
+-- alter table chat_history add index idx_appId_isDelete_createTime_meta (appId, isDelete, createTime, id, messageType, userId);
+-- 已按旧列序建过该索引的库需先执行：alter table chat_history drop index idx_appId_isDelete_createTime_meta;
@@ -6,52 +6,63 @@ import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
 import reactor.core.publisher.Flux;
 
 
-public interface AiCodeGeneratorService {
+/**
+ * AI 代码生成服务
+ * 继承 ChatMemoryAccess：一次生成结束后调用 evictChatMemory(appId) 释放服务内部按 appId 缓存的记忆对象
+ * （只移除内存中的包装对象，Redis 中的记忆保留）
+ */
+public interface AiCodeGeneratorService extends ChatMemoryAccess {
 
     /**
      * 生成 HTML 代码
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户提示词
      * @return AI 的输出结果
      */
     @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
-    HtmlCodeResult generateHtmlCode(@MemoryId int memoryId, @UserMessage String userMessage);
+    HtmlCodeResult generateHtmlCode(@MemoryId long appId, @UserMessage String userMessage);
 
 
 
     /**
      * 生成多文件代码
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户提示词
      * @return AI 的输出结果
      */
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
-    MultiFileCodeResult generateMultiFileCode(String userMessage);
+    MultiFileCodeResult generateMultiFileCode(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成 HTML 代码（流式）
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户消息
      * @return 生成的代码结果
      */
     @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
-    Flux<String> generateHtmlCodeStream(String userMessage);
+    Flux<String> generateHtmlCodeStream(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成多文件代码（流式）
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户消息
      * @return 生成的代码结果
      */
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
-    Flux<String> generateMultiFileCodeStream(String userMessage);
+    Flux<String> generateMultiFileCodeStream(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成 Vue 项目代码（流式）
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户消息
      * @return 生成过程的流式响应
      */
@@ -1,15 +1,15 @@
 package com.zw.zwaicodemother.ai;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
+import com.zw.zwaicodemother.ai.memory.ChatMemorySummarizer;
+import com.zw.zwaicodemother.ai.memory.RehydratingChatMemoryStore;
+import com.zw.zwaicodemother.ai.memory.TokenBudgetChatMemory;
 import com.zw.zwaicodemother.ai.tool.*;
+import com.zw.zwaicodemother.config.ChatMemoryConfig;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
-import com.zw.zwaicodemother.service.ChatHistoryService;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
@@ -20,7 +20,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
-import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -42,74 +43,55 @@ public class AiCodeGeneratorServiceFactory {
     private StreamingChatModel reasoningStreamingChatModel;
 
     @Resource
-    private RedisChatMemoryStore redisChatMemoryStore;
+    private RehydratingChatMemoryStore rehydratingChatMemoryStore;
 
     @Resource
-    private ChatHistoryService chatHistoryService;
+    private ChatMemorySummarizer chatMemorySummarizer;
+
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
 
     @Resource
     private ToolManager toolManager;
 
     /**
-     * AI 服务实例缓存
-     * 缓存策略：
-     * - 最大缓存 1000 个实例
-     * - 写入后 30 分钟过期
-     * - 访问后 10 分钟过期
+     * 每种生成类型一个 AI 服务实例，所有应用共用
+     * 对话记忆按调用时的 @MemoryId（appId）由 chatMemoryProvider 提供，
+     * 记忆对象只是 Redis 记忆的轻量包装，内容不在堆中常驻；
+     * 服务内部会按 appId 缓存记忆对象，调用方在生成结束后通过 evictChatMemory 释放
      */
-    private final Cache<String,AiCodeGeneratorService> serviceCache= Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(30))
-            .expireAfterAccess(Duration.ofMinutes(10))
-            .removalListener((key, value, cause) -> {
-                log.info("AI 服务实例被移除，缓存键: {}, 原因: {}", key, cause);
-            })
-            .build();
+    private final Map<CodeGenTypeEnum, AiCodeGeneratorService> services = new ConcurrentHashMap<>();
 
     /**
-     * 根据 appId 获取服务（带缓存）
+     * 获取 HTML 生成服务
      */
-    public AiCodeGeneratorService getAiCodeGeneratorService(long appId) {
-        return getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
+    public AiCodeGeneratorService getAiCodeGeneratorService() {
+        return getAiCodeGeneratorService(CodeGenTypeEnum.HTML);
     }
 
     /**
-     * 根据 appId 和代码生成类型获取服务（带缓存）
+     * 根据代码生成类型获取服务（首次使用时创建）
      *
-     * @param appId       应用 id
      * @param codeGenType 生成类型
      */
-    public AiCodeGeneratorService getAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
-        String cacheKey = buildCacheKey(appId, codeGenType);
-        return serviceCache.get(cacheKey, key -> createAiCodeGeneratorService(appId, codeGenType));
+    public AiCodeGeneratorService getAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
+        return services.computeIfAbsent(codeGenType, this::createAiCodeGeneratorService);
     }
 
     /**
      * 创建新的 AI 服务实例
      *
-     *
-     * @param appId       应用 id
      * @param codeGenType 生成类型
-     *
      */
-    private AiCodeGeneratorService createAiCodeGeneratorService(Long appId, CodeGenTypeEnum codeGenType) {
-        log.info("创建新的 AI 服务实例，appId: {}", appId);
-        //根据appID构建独立的对话记忆
-        MessageWindowChatMemory  chatMemory=MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(200)
-                .build();
-        // 从数据库加载历史对话到记忆中
-        chatHistoryService.loadChatHistoryToMemory(appId,chatMemory,20);
+    private AiCodeGeneratorService createAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
+        log.info("创建 AI 服务实例，生成类型: {}", codeGenType.getValue());
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType){
             // Vue 项目生成，使用工具调用和推理模型
             // Vue 项目生成使用推理模型
             case VUE_PROJECT -> AiServices.builder(AiCodeGeneratorService.class)
                     .streamingChatModel(reasoningStreamingChatModel)
-                    .chatMemoryProvider(memoryId -> chatMemory)
+                    .chatMemoryProvider(this::buildChatMemory)
                     .tools(toolManager.getAllTools())
                     // 处理工具调用幻觉问题
                     .hallucinatedToolNameStrategy(toolExecutionRequest -> ToolExecutionResultMessage.from(
@@ -120,7 +102,7 @@ public class AiCodeGeneratorServiceFactory {
             case HTML ,MULTI_FILE -> AiServices.builder(AiCodeGeneratorService.class)
                     .chatModel(chatModel)
                     .streamingChatModel(openAiStreamingChatModel)
-                    .chatMemory(chatMemory)
+                    .chatMemoryProvider(this::buildChatMemory)
                     .build();
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR,
                     "不支持的代码生成类型: " + codeGenType.getValue());
@@ -128,24 +110,23 @@ public class AiCodeGeneratorServiceFactory {
     }
 
     /**
-     * 创建 AI 代码生成器服务
+     * 根据 appId 构建独立的对话记忆
+     * 模型第一次读取记忆时，如果 Redis 中的记忆已失效再从数据库重建；记忆按 token 预算裁剪，淘汰的对话在后台生成摘要
      *
-     * @return
+     * @param memoryId 应用 id
      */
-    @Bean
-    public AiCodeGeneratorService aiCodeGeneratorService() {
-        return getAiCodeGeneratorService(0);
+    private ChatMemory buildChatMemory(Object memoryId) {
+        return new TokenBudgetChatMemory(memoryId, rehydratingChatMemoryStore, chatMemoryConfig, chatMemorySummarizer);
     }
 
     /**
-     * 构造缓存键
+     * 创建 AI 代码生成器服务
      *
-     * @param appId
-     * @param codeGenType
      * @return
      */
-    private String buildCacheKey(long appId, CodeGenTypeEnum codeGenType) {
-        return appId + "_" + codeGenType.getValue();
+    @Bean
+    public AiCodeGeneratorService aiCodeGeneratorService() {
+        return getAiCodeGeneratorService();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.zw.zwaicodemother.ai.listener;
+
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 模型调用 token 用量监听器
+ * 记录每次调用的输入、输出 token 数，以及输入中命中服务端前缀缓存的 token 数
+ * （OpenAI 兼容接口 usage.prompt_tokens_details.cached_tokens，DeepSeek 同时返回该字段）。
+ * 前缀缓存只有在系统提示词、工具定义和较早的历史消息逐字节不变时才能命中，命中率可以用来检查这一点
+ */
+@Component
+@Slf4j
+public class PromptCacheUsageListener implements ChatModelListener {
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder inputTokens = new LongAdder();
+
+    private final LongAdder cachedInputTokens = new LongAdder();
+
+    private final LongAdder outputTokens = new LongAdder();
+
+    /**
+     * 累计统计
+     *
+     * @param requests          有用量信息的调用次数
+     * @param inputTokens       输入 token 总数
+     * @param cachedInputTokens 命中前缀缓存的输入 token 总数
+     * @param outputTokens      输出 token 总数
+     * @param cacheHitRate      输入 token 缓存命中率
+     */
+    public record PromptCacheStatistics(long requests, long inputTokens, long cachedInputTokens,
+                                        long outputTokens, double cacheHitRate) {
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext responseContext) {
+        ChatResponse chatResponse = responseContext.chatResponse();
+        TokenUsage tokenUsage = chatResponse == null ? null : chatResponse.tokenUsage();
+        if (tokenUsage == null || tokenUsage.inputTokenCount() == null) {
+            return;
+        }
+        int input = tokenUsage.inputTokenCount();
+        int output = tokenUsage.outputTokenCount() == null ? 0 : tokenUsage.outputTokenCount();
+        int cached = 0;
+        if (tokenUsage instanceof OpenAiTokenUsage openAiTokenUsage
+                && openAiTokenUsage.inputTokensDetails() != null
+                && openAiTokenUsage.inputTokensDetails().cachedTokens() != null) {
+            cached = openAiTokenUsage.inputTokensDetails().cachedTokens();
+        }
+        requests.increment();
+        inputTokens.add(input);
+        cachedInputTokens.add(cached);
+        outputTokens.add(output);
+        log.info("模型 {} 调用完成，输入 {} token（缓存命中 {}，{}%），输出 {} token",
+                chatResponse.modelName(), input, cached, input == 0 ? 0 : cached * 100 / input, output);
+    }
+
+    public PromptCacheStatistics getStatistics() {
+        long input = inputTokens.sum();
+        long cached = cachedInputTokens.sum();
+        return new PromptCacheStatistics(requests.sum(), input, cached, outputTokens.sum(),
+                input == 0 ? 0 : (double) cached / input);
+    }
+}
@@ -0,0 +1,146 @@
+package com.zw.zwaicodemother.ai.memory;
+
+import cn.hutool.core.util.StrUtil;
+import com.zw.zwaicodemother.config.ChatMemoryConfig;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 对话记忆摘要器
+ * 在后台把从记忆中淘汰的消息与已有摘要合并成新的摘要，不阻塞当前对话；
+ * 同一个记忆的摘要任务按提交顺序串行执行，保证摘要依次累积
+ */
+@Component
+@Slf4j
+public class ChatMemorySummarizer {
+
+    /**
+     * 转写淘汰消息时单条消息的最大长度
+     */
+    private static final int TRANSCRIPT_MESSAGE_MAX_CHARS = 1000;
+
+    @Resource
+    private ChatModel chatModel;
+
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
+
+    @Resource
+    private RehydratingChatMemoryStore rehydratingChatMemoryStore;
+
+    private ExecutorService executor;
+
+    /**
+     * 每个记忆最后提交的摘要任务
+     */
+    private final Map<Object, CompletableFuture<Void>> chains = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(Math.max(1, chatMemoryConfig.getSummaryThreads()),
+                Thread.ofPlatform().name("chat-memory-summarizer-", 0).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取记忆摘要
+     */
+    public String getSummary(Object memoryId) {
+        if (!chatMemoryConfig.isSummaryEnabled()) {
+            return null;
+        }
+        return rehydratingChatMemoryStore.getSummary(memoryId);
+    }
+
+    /**
+     * 提交摘要任务
+     *
+     * @param memoryId 记忆 id
+     * @param evicted  被淘汰的消息
+     */
+    public void summarizeAsync(Object memoryId, List<ChatMessage> evicted) {
+        if (!chatMemoryConfig.isSummaryEnabled() || evicted.isEmpty()) {
+            return;
+        }
+        List<ChatMessage> messages = List.copyOf(evicted);
+        try {
+            CompletableFuture<Void> future = chains.compute(memoryId, (key, previous) ->
+                    (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous)
+                            .thenRunAsync(() -> summarize(memoryId, messages), executor)
+                            .exceptionally(e -> {
+                                log.warn("生成对话摘要失败，memoryId: {}, 错误: {}", memoryId, e.getMessage());
+                                return null;
+                            }));
+            future.whenComplete((result, e) -> chains.remove(memoryId, future));
+        } catch (RejectedExecutionException e) {
+            log.warn("摘要线程池已关闭，跳过 memoryId: {} 的摘要", memoryId);
+        }
+    }
+
+    private void summarize(Object memoryId, List<ChatMessage> messages) {
+        String previous = rehydratingChatMemoryStore.getSummary(memoryId);
+        StringBuilder prompt = new StringBuilder()
+                .append("请将下面的对话压缩成不超过 ").append(chatMemoryConfig.getSummaryMaxChars())
+                .append(" 字的摘要，保留用户的需求和偏好、已经做出的决定、生成或修改过的文件及其作用，省略具体代码。")
+                .append("只输出摘要内容。\n\n");
+        if (StrUtil.isNotBlank(previous)) {
+            prompt.append("已有摘要：\n").append(previous).append("\n\n");
+        }
+        prompt.append("新增对话：\n");
+        for (ChatMessage message : messages) {
+            String line = toTranscriptLine(message);
+            if (line != null) {
+                prompt.append(StrUtil.maxLength(line, TRANSCRIPT_MESSAGE_MAX_CHARS)).append('\n');
+            }
+        }
+        long start = System.currentTimeMillis();
+        String summary = chatModel.chat(prompt.toString());
+        if (StrUtil.isBlank(summary)) {
+            return;
+        }
+        rehydratingChatMemoryStore.updateSummary(memoryId,
+                StrUtil.maxLength(summary.trim(), chatMemoryConfig.getSummaryMaxChars()));
+        log.info("更新对话摘要，memoryId: {}, 合并 {} 条消息，耗时 {}ms",
+                memoryId, messages.size(), System.currentTimeMillis() - start);
+    }
+
+    private static String toTranscriptLine(ChatMessage message) {
+        if (message instanceof UserMessage userMessage) {
+            return "用户：" + (userMessage.hasSingleText() ? userMessage.singleText() : userMessage.toString());
+        }
+        if (message instanceof AiMessage aiMessage) {
+            StringBuilder sb = new StringBuilder("AI：").append(StrUtil.nullToEmpty(aiMessage.text()));
+            if (aiMessage.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    sb.append(" [调用工具 ").append(request.name()).append(' ').append(request.arguments()).append(']');
+                }
+            }
+            return sb.toString();
+        }
+        if (message instanceof ToolExecutionResultMessage result) {
+            return "工具 " + result.toolName() + " 结果：" + result.text();
+        }
+        return null;
+    }
+}
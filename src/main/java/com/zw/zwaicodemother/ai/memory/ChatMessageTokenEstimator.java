@@ -0,0 +1,60 @@
+package com.zw.zwaicodemother.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+/**
+ * 对话消息 token 数估算
+ * 不依赖具体模型的分词器：中日韩字符按 1 个 token，其余字符按 4 个字符 1 个 token，
+ * 每条消息另加固定开销。只用于记忆裁剪，偏差在预算的容差范围内即可
+ */
+public final class ChatMessageTokenEstimator {
+
+    /**
+     * 每条消息的格式开销（角色、分隔符等）
+     */
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private ChatMessageTokenEstimator() {
+    }
+
+    public static int estimate(ChatMessage message) {
+        int tokens = MESSAGE_OVERHEAD;
+        if (message instanceof UserMessage userMessage) {
+            tokens += userMessage.hasSingleText() ? estimate(userMessage.singleText()) : estimate(userMessage.toString());
+        } else if (message instanceof AiMessage aiMessage) {
+            tokens += estimate(aiMessage.text());
+            if (aiMessage.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    tokens += MESSAGE_OVERHEAD + estimate(request.name()) + estimate(request.arguments());
+                }
+            }
+        } else if (message instanceof ToolExecutionResultMessage result) {
+            tokens += estimate(result.toolName()) + estimate(result.text());
+        } else if (message instanceof SystemMessage systemMessage) {
+            tokens += estimate(systemMessage.text());
+        }
+        return tokens;
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '\u2E80' && c <= '\u9FFF' || c >= '\uAC00' && c <= '\uD7AF' || c >= '\uFF00' && c <= '\uFFEF') {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+}
@@ -0,0 +1,118 @@
+package com.zw.zwaicodemother.ai.memory;
+
+import com.zw.zwaicodemother.config.RedisChatMemoryStoreConfig;
+import com.zw.zwaicodemother.service.ChatHistoryService;
+import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 按需重建的对话记忆存储
+ * 包装 Redis 对话记忆，只有模型第一次读取记忆、且 Redis 中的记忆已失效时才从数据库重建：
+ * 1. 每次写入记忆时同时记录水位（记忆中的消息条数），过期时间与记忆一致
+ * 2. 读到非空记忆直接使用；读到空记忆时查看水位：
+ *    水位为 0 表示确实还没有对话，水位缺失或大于 0 表示记忆已过期或被淘汰，从数据库加载最近的历史
+ * 创建 AI 服务实例时不再读写数据库和 Redis，实例缓存淘汰重建也不会重复加载
+ * 同时保存被淘汰对话的摘要，与记忆一起过期、一起删除
+ */
+@Component
+@Slf4j
+public class RehydratingChatMemoryStore implements ChatMemoryStore {
+
+    private static final String WATERMARK_KEY_PREFIX = "chat-memory:watermark:";
+
+    private static final String SUMMARY_KEY_PREFIX = "chat-memory:summary:";
+
+    /**
+     * 重建时从数据库加载的最大消息条数
+     */
+    private static final int REHYDRATE_MAX_COUNT = 20;
+
+    @Resource
+    private RedisChatMemoryStore redisChatMemoryStore;
+
+    @Resource
+    private RedisChatMemoryStoreConfig redisChatMemoryStoreConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    @Lazy
+    private ChatHistoryService chatHistoryService;
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        List<ChatMessage> messages = redisChatMemoryStore.getMessages(memoryId);
+        if (!messages.isEmpty()) {
+            return messages;
+        }
+        String watermark = stringRedisTemplate.opsForValue().get(WATERMARK_KEY_PREFIX + memoryId);
+        if ("0".equals(watermark)) {
+            return messages;
+        }
+        // 记忆已失效，从数据库重建（摘要对应的是失效前的记忆，一并丢弃）
+        stringRedisTemplate.delete(SUMMARY_KEY_PREFIX + memoryId);
+        Long appId = Long.valueOf(memoryId.toString());
+        List<ChatMessage> history = chatHistoryService.loadRecentChatMessages(appId, REHYDRATE_MAX_COUNT);
+        if (history.isEmpty()) {
+            // 没有历史可重建，Redis 中的记忆本来就是空的，只记录水位
+            setWithTtl(WATERMARK_KEY_PREFIX + memoryId, "0");
+            return history;
+        }
+        updateMessages(memoryId, history);
+        log.info("重建 appId: {} 的对话记忆，加载 {} 条历史消息，原水位: {}", appId, history.size(), watermark);
+        return history;
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        // Redis 对话记忆不接受空列表，清空记忆时删除键
+        if (messages.isEmpty()) {
+            redisChatMemoryStore.deleteMessages(memoryId);
+        } else {
+            redisChatMemoryStore.updateMessages(memoryId, messages);
+        }
+        setWithTtl(WATERMARK_KEY_PREFIX + memoryId, String.valueOf(messages.size()));
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        redisChatMemoryStore.deleteMessages(memoryId);
+        stringRedisTemplate.delete(List.of(WATERMARK_KEY_PREFIX + memoryId, SUMMARY_KEY_PREFIX + memoryId));
+    }
+
+    /**
+     * 获取被淘汰对话的摘要
+     */
+    public String getSummary(Object memoryId) {
+        return stringRedisTemplate.opsForValue().get(SUMMARY_KEY_PREFIX + memoryId);
+    }
+
+    /**
+     * 保存被淘汰对话的摘要
+     */
+    public void updateSummary(Object memoryId, String summary) {
+        setWithTtl(SUMMARY_KEY_PREFIX + memoryId, summary);
+    }
+
+    /**
+     * 写入与记忆过期时间一致的键
+     */
+    private void setWithTtl(String key, String value) {
+        long ttl = redisChatMemoryStoreConfig.getTtl();
+        if (ttl > 0) {
+            stringRedisTemplate.opsForValue().set(key, value, Duration.ofSeconds(ttl));
+        } else {
+            stringRedisTemplate.opsForValue().set(key, value);
+        }
+    }
+}
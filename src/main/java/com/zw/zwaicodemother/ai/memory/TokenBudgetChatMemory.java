@@ -0,0 +1,227 @@
+package com.zw.zwaicodemother.ai.memory;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.zw.zwaicodemother.config.ChatMemoryConfig;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 token 预算裁剪的对话记忆
+ * 1. 估算的 token 数超出预算时，先把之前轮次中过长的工具参数和工具结果折叠为简短引用
+ *    （Vue 项目模式下读写文件的参数和结果往往是整个文件内容）
+ * 2. 仍然超出预算或条数超出上限时，从最早的对话开始整轮淘汰，一次淘汰到低水位（默认预算的 70%）以下，
+ *    淘汰的消息交给摘要器在后台压缩成摘要，读取记忆时以一问一答的形式放在系统提示词之后。
+ *    本轮（最后一条用户消息及其后的工具调用）不参与淘汰，否则工具结果会失去对应的调用请求；
+ *    本轮自身超出预算时（工具循环中读写了大量文件），折叠本轮中模型已经处理过的工具内容
+ * 3. 系统提示词始终位于第一条且内容不变；未超预算时已有消息不做任何改写，
+ *    保证相邻请求的前缀逐字节一致，可以命中模型服务端的前缀缓存。
+ *    折叠和淘汰都是一次性改写，淘汰到低水位后要再积累若干轮才会再次改写，期间前缀保持稳定
+ */
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    private static final String SUMMARY_PREFIX = "以下是之前对话的摘要，请在此基础上继续：\n";
+
+    private static final String SUMMARY_ACK = "好的，我已了解之前的对话内容。";
+
+    private final Object id;
+
+    private final ChatMemoryStore store;
+
+    private final ChatMemoryConfig config;
+
+    /**
+     * 摘要器，为空时淘汰的消息直接丢弃
+     */
+    private final ChatMemorySummarizer summarizer;
+
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, ChatMemoryConfig config,
+                                 ChatMemorySummarizer summarizer) {
+        this.id = id;
+        this.store = store;
+        this.config = config;
+        this.summarizer = summarizer;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        if (message instanceof SystemMessage) {
+            int index = indexOfSystemMessage(messages);
+            if (index >= 0) {
+                if (messages.get(index).equals(message)) {
+                    return;
+                }
+                messages.remove(index);
+            }
+            messages.add(0, message);
+        } else {
+            messages.add(message);
+        }
+        if (estimateTokens(messages) > config.getMaxTokens()) {
+            collapseToolContents(messages, 0, lastIndexOf(messages, UserMessage.class));
+        }
+        List<ChatMessage> evicted = evict(messages);
+        if (estimateTokens(messages) > config.getMaxTokens()) {
+            // 最新一次工具调用请求及其结果模型还没处理，保持原样
+            collapseToolContents(messages, lastIndexOf(messages, UserMessage.class) + 1,
+                    lastIndexOf(messages, AiMessage.class));
+        }
+        store.updateMessages(id, messages);
+        if (!evicted.isEmpty() && summarizer != null) {
+            summarizer.summarizeAsync(id, evicted);
+        }
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        String summary = summarizer == null ? null : summarizer.getSummary(id);
+        if (StrUtil.isNotBlank(summary)) {
+            int insertAt = indexOfSystemMessage(messages) + 1;
+            messages.add(insertAt, UserMessage.from(SUMMARY_PREFIX + summary));
+            messages.add(insertAt + 1, AiMessage.from(SUMMARY_ACK));
+        }
+        return messages;
+    }
+
+    @Override
+    public void clear() {
+        store.deleteMessages(id);
+    }
+
+    /**
+     * 折叠指定范围内过长的工具参数和结果（只改写内容，调用请求和结果的对应关系不变）
+     *
+     * @param from 起始下标（包含）
+     * @param end  结束下标（不包含）
+     */
+    void collapseToolContents(List<ChatMessage> messages, int from, int end) {
+        int maxChars = config.getToolContentMaxChars();
+        for (int i = Math.max(from, 0); i < end; i++) {
+            ChatMessage message = messages.get(i);
+            if (message instanceof ToolExecutionResultMessage result && StrUtil.length(result.text()) > maxChars) {
+                String reference = String.format("[已折叠的历史工具结果：%s，原长度 %d 字符，需要时请重新调用工具获取]",
+                        result.toolName(), result.text().length());
+                messages.set(i, ToolExecutionResultMessage.from(result.id(), result.toolName(), reference));
+            } else if (message instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                boolean changed = false;
+                List<ToolExecutionRequest> requests = new ArrayList<>();
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    String arguments = collapseArguments(request.arguments(), maxChars);
+                    changed |= !arguments.equals(request.arguments());
+                    requests.add(ToolExecutionRequest.builder()
+                            .id(request.id())
+                            .name(request.name())
+                            .arguments(arguments)
+                            .build());
+                }
+                if (changed) {
+                    messages.set(i, aiMessage.text() == null
+                            ? AiMessage.from(requests)
+                            : AiMessage.from(aiMessage.text(), requests));
+                }
+            }
+        }
+    }
+
+    /**
+     * 工具参数保持合法 JSON，只把过长的字符串值替换为引用（保留文件路径等短参数）
+     */
+    private static String collapseArguments(String arguments, int maxChars) {
+        if (StrUtil.length(arguments) <= maxChars || !JSONUtil.isTypeJSONObject(arguments)) {
+            return StrUtil.nullToEmpty(arguments);
+        }
+        JSONObject json = JSONUtil.parseObj(arguments);
+        for (String key : json.keySet()) {
+            Object value = json.get(key);
+            if (value instanceof String text && text.length() > maxChars) {
+                json.set(key, String.format("[已折叠，原长度 %d 字符]", text.length()));
+            }
+        }
+        return json.toString();
+    }
+
+    /**
+     * 超出预算时从最早的对话开始整轮淘汰（每次淘汰到下一条用户消息为止，不留下孤立的工具结果），
+     * 直到低于低水位；只淘汰最后一条用户消息之前的轮次，本轮始终保留
+     *
+     * @return 被淘汰的消息
+     */
+    List<ChatMessage> evict(List<ChatMessage> messages) {
+        int first = indexOfSystemMessage(messages) + 1;
+        int currentTurn = lastIndexOf(messages, UserMessage.class);
+        int tokens = estimateTokens(messages);
+        int count = messages.size() - first;
+        if (tokens <= config.getMaxTokens() && count <= config.getMaxMessages()) {
+            return new ArrayList<>();
+        }
+        int tokenLowWater = (int) (config.getMaxTokens() * config.getEvictLowWaterRatio());
+        int countLowWater = (int) (config.getMaxMessages() * config.getEvictLowWaterRatio());
+        int cut = first;
+        while (cut < currentTurn && (tokens > tokenLowWater || count > countLowWater)) {
+            int next = cut + 1;
+            while (next < currentTurn && !(messages.get(next) instanceof UserMessage)) {
+                next++;
+            }
+            for (int i = cut; i < next; i++) {
+                tokens -= ChatMessageTokenEstimator.estimate(messages.get(i));
+                count--;
+            }
+            cut = next;
+        }
+        List<ChatMessage> evictedRange = messages.subList(first, Math.max(first, cut));
+        List<ChatMessage> evicted = new ArrayList<>(evictedRange);
+        evictedRange.clear();
+        return evicted;
+    }
+
+    /**
+     * 估算除系统提示词以外的消息 token 数
+     */
+    private static int estimateTokens(List<ChatMessage> messages) {
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            if (!(message instanceof SystemMessage)) {
+                tokens += ChatMessageTokenEstimator.estimate(message);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 指定类型的最后一条消息下标，不存在时返回 -1
+     */
+    private static int lastIndexOf(List<ChatMessage> messages, Class<? extends ChatMessage> type) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (type.isInstance(messages.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfSystemMessage(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
-public class AiResponseMessage extends StreamMessage{
+public final class AiResponseMessage extends StreamMessage{
     private String data;
 
     public AiResponseMessage(String data) {
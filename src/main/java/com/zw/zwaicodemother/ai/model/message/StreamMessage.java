@@ -6,10 +6,12 @@ import lombok.NoArgsConstructor;
 
 /**
  * 流式消息响应基类
+ * 在进程内以对象形式经由 Flux 传递，只在 SSE 输出端编码一次；
+ * 密封类型便于处理器用模式匹配穷举所有消息
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class StreamMessage {
+public abstract sealed class StreamMessage permits AiResponseMessage, ToolRequestMessage, ToolExecutedMessage {
     private String type;
 }
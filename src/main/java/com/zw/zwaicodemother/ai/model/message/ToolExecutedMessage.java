@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
-public class ToolExecutedMessage extends StreamMessage{
+public final class ToolExecutedMessage extends StreamMessage{
     private  String id;
     private  String name;
     private String arguments;
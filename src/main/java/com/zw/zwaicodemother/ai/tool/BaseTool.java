@@ -1,6 +1,14 @@
 package com.zw.zwaicodemother.ai.tool;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
+import com.zw.zwaicodemother.constant.AppConstant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * 工具基类
@@ -36,5 +44,32 @@ public  abstract class BaseTool {
      */
      public  abstract String generateToolExecutedResult(JSONObject arguments);
 
-
+    /**
+     * 把工具参数中的路径解析为应用项目目录（vue_project_{appId}）下的路径
+     * 已存在的部分跟随符号链接解析为真实路径后再校验，防止通过 ../、绝对路径或符号链接
+     * （如指向共享依赖仓库的 node_modules）读写其他应用的文件
+     *
+     * @param relativePath 相对项目目录的路径
+     * @param appId        应用 ID
+     * @return 项目目录内的路径，超出项目目录时返回 null
+     */
+    protected Path resolveProjectPath(String relativePath, Long appId) throws IOException {
+        Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + appId)
+                .toAbsolutePath().normalize();
+        Path path = projectRoot.resolve(StrUtil.nullToEmpty(relativePath)).normalize();
+        if (!path.startsWith(projectRoot)) {
+            return null;
+        }
+        if (!Files.exists(projectRoot)) {
+            // 项目目录还不存在，其中不可能有符号链接
+            return path;
+        }
+        // 找到已存在的最深一级路径（符号链接本身也算存在），跟随链接得到真实路径
+        Path existing = path;
+        while (!Files.exists(existing, LinkOption.NOFOLLOW_LINKS)) {
+            existing = existing.getParent();
+        }
+        Path realPath = existing.toRealPath().resolve(existing.relativize(path));
+        return realPath.startsWith(projectRoot.toRealPath()) ? realPath : null;
+    }
 }
@@ -3,7 +3,6 @@ package com.zw.zwaicodemother.ai.tool;
 import cn.hutool.json.JSONObject;
 import com.github.xiaoymin.knife4j.annotations.Ignore;
 import com.mybatisflex.core.paginate.Page;
-import com.zw.zwaicodemother.constant.AppConstant;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -13,7 +12,6 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * 文件删除工具
@@ -28,13 +26,9 @@ public class FileDeleteTool  extends  BaseTool{
             @P("文件的相对路径") String relativeFilePath,
             @ToolMemoryId Long appId) {
        try {
-           Path path= Paths.get(
-                   relativeFilePath
-           );
-           if (!path.isAbsolute()){
-               String projectDirName  = "vue_project_"+appId;
-               Path projectRoot=Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR,projectDirName);
-               path=projectRoot.resolve(relativeFilePath);
+           Path path = resolveProjectPath(relativeFilePath, appId);
+           if (path == null) {
+               return "错误：路径超出项目目录，拒绝访问 - " + relativeFilePath;
            }
            if(!Files.exists(path)){
                return "警告：文件不存在，无需删除---"+relativeFilePath;
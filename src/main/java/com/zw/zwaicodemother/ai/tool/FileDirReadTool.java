@@ -4,7 +4,6 @@ package com.zw.zwaicodemother.ai.tool;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
-import com.zw.zwaicodemother.constant.AppConstant;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -13,7 +12,6 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Set;
 
@@ -43,11 +41,9 @@ public class FileDirReadTool  extends BaseTool{
             @P("目录的相对路径，为空则读取整个项目结构") String relativeDirPath,
             @ToolMemoryId Long appId){
         try {
-            Path path = Paths.get(relativeDirPath==null?"":relativeDirPath);
-            if (!path.isAbsolute()){
-                String projectDirName="vue_project_"+appId;
-                Path projectRoot  = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path=projectRoot.resolve(relativeDirPath==null?"":relativeDirPath);
+            Path path = resolveProjectPath(relativeDirPath, appId);
+            if (path == null) {
+                return "错误：路径超出项目目录，拒绝访问 - " + relativeDirPath;
             }
             File targetDir=path.toFile();
             if (!targetDir.exists()||!targetDir.isDirectory()){
@@ -1,7 +1,6 @@
 package com.zw.zwaicodemother.ai.tool;
 
 import cn.hutool.json.JSONObject;
-import com.zw.zwaicodemother.constant.AppConstant;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -10,7 +9,6 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * 文件读取工具
@@ -25,11 +23,9 @@ public class FileReadTool extends BaseTool{
             @ToolMemoryId Long appId)
     {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()){
-                String projectDirName ="vue_project_"+appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
+            Path path = resolveProjectPath(relativeFilePath, appId);
+            if (path == null) {
+                return "错误：路径超出项目目录，拒绝访问 - " + relativeFilePath;
             }
             if (!Files.exists(path)){
                 return "错误：文件不存在或不是文件 -  " + relativeFilePath;
@@ -2,7 +2,6 @@ package com.zw.zwaicodemother.ai.tool;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONObject;
-import com.zw.zwaicodemother.constant.AppConstant;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
@@ -13,7 +12,6 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 
 @Slf4j
@@ -26,11 +24,9 @@ public class FileWriteTool extends BaseTool {
             @ToolMemoryId Long appId) {
         //具体实现
         try {
-            Path  path= Paths.get(relativeFilePath);
-            if (!path.isAbsolute()){
-                String projectDirName  = "vue_project_"+appId;
-                Path projectRoot=Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR,projectDirName);
-                path=projectRoot.resolve(relativeFilePath);
+            Path path = resolveProjectPath(relativeFilePath, appId);
+            if (path == null) {
+                return "错误：路径超出项目目录，拒绝访问 - " + relativeFilePath;
             }
             //创建父目录
             Path  parentDir=path.getParent();
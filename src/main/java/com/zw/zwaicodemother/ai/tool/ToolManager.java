@@ -5,6 +5,8 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,6 +33,8 @@ public class ToolManager {
      */
     @PostConstruct
     public void initTools() {
+        // 按名称排序，保证每个节点、每次启动发给模型的工具定义顺序一致（前缀缓存要求请求前缀逐字节不变）
+        Arrays.sort(tools, Comparator.comparing(BaseTool::getToolName));
         for (BaseTool tool : tools) {
             toolMap.put(tool.getToolName(), tool);
             log.info("注册工具: {} -> {}", tool.getToolName(), tool.getDisplayName());
@@ -0,0 +1,49 @@
+package com.zw.zwaicodemother.annotation;
+
+import com.zw.zwaicodemother.model.enums.RateLimitTypeEnum;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 令牌桶限流
+ * 可在同一方法上叠加多个维度（如按用户 + 全局）
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimits.class)
+public @interface RateLimit {
+
+    /**
+     * 限流 key 前缀，默认使用 类名.方法名
+     */
+    String key() default "";
+
+    /**
+     * 限流维度
+     */
+    RateLimitTypeEnum limitType() default RateLimitTypeEnum.USER;
+
+    /**
+     * 每个时间窗口补充的令牌数
+     */
+    int rate() default 10;
+
+    /**
+     * 时间窗口（秒）
+     */
+    int rateInterval() default 60;
+
+    /**
+     * 桶容量（允许的突发请求数），小于等于 0 时等于 rate
+     */
+    int capacity() default 0;
+
+    /**
+     * 被限流时的提示信息
+     */
+    String message() default "请求过于频繁，请稍后再试";
+}
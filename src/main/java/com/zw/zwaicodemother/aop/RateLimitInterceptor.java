@@ -0,0 +1,134 @@
+package com.zw.zwaicodemother.aop;
+
+import cn.hutool.core.lang.Validator;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.StrUtil;
+import com.zw.zwaicodemother.annotation.RateLimit;
+import com.zw.zwaicodemother.annotation.RateLimits;
+import com.zw.zwaicodemother.config.RateLimitConfig;
+import com.zw.zwaicodemother.exception.BusinessException;
+import com.zw.zwaicodemother.exception.ErrorCode;
+import com.zw.zwaicodemother.model.entity.User;
+import com.zw.zwaicodemother.ratelimit.RateLimiter;
+import com.zw.zwaicodemother.service.UserService;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Aspect
+@Component
+@Slf4j
+public class RateLimitInterceptor {
+
+    @Resource
+    private RateLimiter rateLimiter;
+
+    @Resource
+    private RateLimitConfig rateLimitConfig;
+
+    @Resource
+    private UserService userService;
+
+    /**
+     * 执行拦截
+     *
+     * @param joinPoint 切入点
+     */
+    @Around("@annotation(com.zw.zwaicodemother.annotation.RateLimit) || @annotation(com.zw.zwaicodemother.annotation.RateLimits)")
+    public Object doInterceptor(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!rateLimitConfig.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Set<RateLimit> rateLimits = AnnotatedElementUtils.findMergedRepeatableAnnotations(method, RateLimit.class, RateLimits.class);
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        List<RateLimit> limits = new ArrayList<>(rateLimits);
+        List<RateLimiter.Bucket> buckets = new ArrayList<>();
+        for (RateLimit rateLimit : limits) {
+            int capacity = rateLimit.capacity() > 0 ? rateLimit.capacity() : rateLimit.rate();
+            buckets.add(new RateLimiter.Bucket(buildKey(rateLimit, method, request), capacity,
+                    rateLimit.rate(), rateLimit.rateInterval()));
+        }
+        // 所有限流维度一起检查：任一维度拒绝时其他维度的令牌也不扣减
+        int rejected = rateLimiter.tryAcquireAll(buckets);
+        if (rejected >= 0) {
+            log.warn("触发限流，key: {}", buckets.get(rejected).key());
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, limits.get(rejected).message());
+        }
+        return joinPoint.proceed();
+    }
+
+    /**
+     * 构建限流 key：前缀:接口:维度:标识
+     */
+    private String buildKey(RateLimit rateLimit, Method method, HttpServletRequest request) {
+        String apiKey = StrUtil.isNotBlank(rateLimit.key()) ? rateLimit.key()
+                : method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        String identity = switch (rateLimit.limitType()) {
+            case USER -> {
+                User loginUser = userService.getLoginUser(request);
+                yield String.valueOf(loginUser.getId());
+            }
+            case IP -> getClientIp(request);
+            case GLOBAL -> "all";
+        };
+        return String.join(":", rateLimitConfig.getKeyPrefix(), apiKey, rateLimit.limitType().getValue(), identity);
+    }
+
+    /**
+     * 获取客户端 IP
+     * 只有直连地址是受信任代理时才解析 X-Forwarded-For，并从右向左取第一个不受信任的地址，
+     * 客户端自己伪造的转发头位于最左侧，不会被采用
+     */
+    private String getClientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (StrUtil.isBlank(forwardedFor)) {
+            String realIp = request.getHeader("X-Real-IP");
+            return StrUtil.isNotBlank(realIp) ? realIp.trim() : remoteAddr;
+        }
+        List<String> hops = StrUtil.splitTrim(forwardedFor, ",");
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            String hop = hops.get(i);
+            if (!isTrustedProxy(hop) || i == 0) {
+                return hop;
+            }
+        }
+        return remoteAddr;
+    }
+
+    /**
+     * 判断地址是否为受信任代理
+     */
+    private boolean isTrustedProxy(String ip) {
+        if (StrUtil.isBlank(ip)) {
+            return false;
+        }
+        for (String proxy : rateLimitConfig.getTrustedProxies()) {
+            if (proxy.contains("/")) {
+                if (Validator.isIpv4(ip) && NetUtil.isInRange(ip, proxy)) {
+                    return true;
+                }
+            } else if (proxy.equals(ip)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
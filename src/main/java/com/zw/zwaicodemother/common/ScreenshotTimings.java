@@ -0,0 +1,39 @@
+package com.zw.zwaicodemother.common;
+
+import lombok.Data;
+
+/**
+ * 单次截图各阶段耗时（毫秒）
+ */
+@Data
+public class ScreenshotTimings {
+
+    /**
+     * 打开页面（直到 load 事件）
+     */
+    private long navigateMillis;
+
+    /**
+     * 等待页面就绪（网络空闲、图片和字体加载完成）
+     */
+    private long readyMillis;
+
+    /**
+     * 浏览器截图
+     */
+    private long captureMillis;
+
+    /**
+     * 压缩图片
+     */
+    private long compressMillis;
+
+    /**
+     * 是否在截止时间内就绪（false 表示超过截止时间后直接截图）
+     */
+    private boolean ready;
+
+    public long getTotalMillis() {
+        return navigateMillis + readyMillis + captureMillis + compressMillis;
+    }
+}
@@ -1,6 +1,5 @@
 package com.zw.zwaicodemother.common;
 
-import cn.hutool.core.img.ImgUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.RandomUtil;
@@ -17,30 +16,72 @@ import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.List;
 
 @Slf4j
 public class WebScreenshotUtils {
-    private  static final WebDriver webDriver;
-    static  {
-        final int DEFAULT_WIDTH = 1600;
-        final int DEFAULT_HEIGHT=900;
-        webDriver=initChromeDriver();
-    }
 
-    public  void  destroy(){
-        webDriver.quit();
-    }
     /**
-     * 初始化 Chrome 浏览器驱动
+     * 默认窗口宽度
+     */
+    public static final int DEFAULT_WIDTH = 1600;
+
+    /**
+     * 默认窗口高度
+     */
+    public static final int DEFAULT_HEIGHT = 900;
+
+    /**
+     * 默认等待页面就绪的截止时间
+     */
+    public static final Duration DEFAULT_READY_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 资源请求数保持不变多久视为网络空闲
+     */
+    private static final Duration NETWORK_IDLE = Duration.ofMillis(500);
+
+    /**
+     * 就绪状态轮询间隔
+     */
+    private static final Duration READY_POLL_INTERVAL = Duration.ofMillis(100);
+
+    /**
+     * 页面状态脚本：[load 完成, 已发起的资源请求数, 图片全部加载完成, 字体全部加载完成]
+     */
+    private static final String PAGE_STATE_SCRIPT = """
+            return [
+                document.readyState === 'complete',
+                performance.getEntriesByType('resource').length,
+                Array.from(document.images).every(function (img) { return img.complete; }),
+                !document.fonts || document.fonts.status === 'loaded'
+            ];""";
+
+    /**
+     * 创建 Chrome 浏览器驱动
+     * 驱动实例不是线程安全的，由 WebDriverPool 统一管理复用，同一时刻只能被一个截图任务使用
+     *
+     * @param width  窗口宽度
+     * @param height 窗口高度
      */
     @NotNull
-    private static WebDriver initChromeDriver(){
+    public static WebDriver createChromeDriver(int width, int height){
         try{
             //自动管理ChromeDriver
             WebDriverManager.chromedriver().setup();
@@ -55,7 +96,7 @@ public class WebScreenshotUtils {
             //禁用开发者shm使用
             chromeOptions.addArguments("--disable-dev-shm-usage");
             //设置窗口大小
-            chromeOptions.addArguments("--window-size%d,%d="+ 1600 +","+ 900);
+            chromeOptions.addArguments(String.format("--window-size=%d,%d", width, height));
             //禁用扩展
             chromeOptions.addArguments("--disable-extensions");
             //设置用户代理
@@ -66,7 +107,6 @@ public class WebScreenshotUtils {
             driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
             //设置隐形等待
             driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-           // //初始化驱动
             return driver;
 
         }catch (Exception e){
@@ -75,94 +115,171 @@ public class WebScreenshotUtils {
         }
     }
     /**
-     * 保存图片到文件
+     * 保存图片到临时目录（仅调试或测试使用）
+     *
+     * @param imageBytes 图片内容
+     * @return 文件路径
      */
-    private  static void saveImage(byte[] imageBytes,String  imagePath){
+    public static String saveToTempFile(byte[] imageBytes){
+        String rootPath= System.getProperty("user.dir") + File.separator + "temp" + File.separator +
+                "screenshot" + File.separator + UUID.randomUUID().toString().substring(0, 8);
+        String imagePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + "_compressed.jpg";
         try{
             FileUtil.writeBytes(imageBytes,imagePath);
             log.info("图片保存成功:{}",imagePath);
+            return imagePath;
         }catch (Exception e){
             log.error("保存图片到文件失败",e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR,"保存图片到文件失败");
         }
     }
     /**
-     * 压缩图片
+     * 在内存中缩放并压缩为 JPEG
+     *
+     * @param pngBytes 浏览器截图（PNG）
+     * @param maxWidth 最大宽度，超过时等比缩小，小于等于 0 表示不缩放
+     * @return JPEG 内容
      */
-    private  static  void compressImage(String  originalImagePath,String  compressedImagePath){
+    private static byte[] compressImage(byte[] pngBytes, int maxWidth){
         //压缩图片质量(0.1=10%质量)
         final float COMPRESS_QUALITY=0.3f;
+        ImageWriter writer = null;
         try{
-            ImgUtil.compress(
-                    FileUtil.file(originalImagePath),
-                    FileUtil.file(compressedImagePath),
-                    COMPRESS_QUALITY
-            );
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(pngBytes));
+            int width = source.getWidth();
+            int height = source.getHeight();
+            if (maxWidth > 0 && width > maxWidth) {
+                height = Math.max(1, Math.round(height * (float) maxWidth / width));
+                width = maxWidth;
+            }
+            // JPEG 不支持透明通道，绘制到白底 RGB 图上
+            BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = target.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setCompressionQuality(COMPRESS_QUALITY);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(pngBytes.length / 4);
+            try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+                writer.setOutput(imageOutputStream);
+                writer.write(null, new IIOImage(target, null, null), writeParam);
+            }
+            return outputStream.toByteArray();
         }catch (Exception e){
-            log.error("压缩图片失败:{}-》{}",originalImagePath,compressedImagePath,e);
+            log.error("压缩图片失败",e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR,"压缩图片失败");
+        }finally {
+            if (writer != null) {
+                writer.dispose();
+            }
         }
     }
     /**
-     * 等待页面加载完成
+     * 等待页面就绪：页面加载完成、图片和字体加载完成，且资源请求数在一段时间内不再增长（网络空闲）
+     * 轮询使用同步脚本，超过截止时间后不再等待，直接截图
+     *
+     * @param webDriver    浏览器驱动
+     * @param readyTimeout 截止时间
+     * @return 是否在截止时间内就绪
      */
-    private  static  void waitForPageLoad(){
+    private static boolean waitForPageReady(WebDriver webDriver, Duration readyTimeout){
+        JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+        long deadline = System.nanoTime() + readyTimeout.toNanos();
+        long lastResourceCount = -1;
+        long idleSince = System.nanoTime();
         try{
-            // 创建等待页面加载对象
-            WebDriverWait wait = new WebDriverWait(WebScreenshotUtils.webDriver, Duration.ofSeconds(30));
-            //// 等待 document.readyState 为complete
-            wait.until(webDriver ->
-                ((JavascriptExecutor)webDriver).executeAsyncScript("return document.readyState")
-                        .equals("complete")
-            );
-            //额外等待一段时间，确保动态内容加载完成
-            Thread.sleep(2000);
-            log.info("页面加载完成");
+            while (true) {
+                List<?> state = (List<?>) executor.executeScript(PAGE_STATE_SCRIPT);
+                long now = System.nanoTime();
+                boolean loaded = Boolean.TRUE.equals(state.get(0));
+                long resourceCount = ((Number) state.get(1)).longValue();
+                boolean imagesLoaded = Boolean.TRUE.equals(state.get(2));
+                boolean fontsLoaded = Boolean.TRUE.equals(state.get(3));
+                if (resourceCount != lastResourceCount) {
+                    // 仍有新资源请求，重新计算空闲时间
+                    lastResourceCount = resourceCount;
+                    idleSince = now;
+                }
+                boolean networkIdle = now - idleSince >= NETWORK_IDLE.toNanos();
+                if (loaded && imagesLoaded && fontsLoaded && networkIdle) {
+                    return true;
+                }
+                if (now >= deadline) {
+                    log.warn("等待页面就绪超时（{}ms），继续执行截图，load: {}, images: {}, fonts: {}, networkIdle: {}",
+                            readyTimeout.toMillis(), loaded, imagesLoaded, fontsLoaded, networkIdle);
+                    return false;
+                }
+                Thread.sleep(READY_POLL_INTERVAL.toMillis());
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
         }catch (Exception e){
-            log.error("等待页面加载时出现异常，继续执行截图",e);
+            log.error("等待页面就绪时出现异常，继续执行截图",e);
             // 忽略异常
+            return false;
         }
     }
     /**
-     * 生成网页截图
+     * 生成网页截图并保存到临时目录（临时创建浏览器，用完即关闭，仅用于测试或偶发调用）
+     * 业务中请通过 ScreenshotManager 使用浏览器池
      *
      * @param webUrl 网页URL
      * @return 压缩后的截图文件路径，失败返回null
      */
-    public static  String saveWebPageScreenshot(String webUrl){
+    public static String saveWebPageScreenshot(String webUrl){
+        WebDriver webDriver = createChromeDriver(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+        try {
+            byte[] imageBytes = captureWebPageScreenshot(webDriver, webUrl, DEFAULT_READY_TIMEOUT, 0, new ScreenshotTimings());
+            return imageBytes == null ? null : saveToTempFile(imageBytes);
+        } finally {
+            webDriver.quit();
+        }
+    }
+
+    /**
+     * 生成网页截图（全程在内存中完成，不落盘）
+     *
+     * @param webDriver    浏览器驱动（调用方保证独占）
+     * @param webUrl       网页URL
+     * @param readyTimeout 等待页面就绪的截止时间
+     * @param maxWidth     图片最大宽度，小于等于 0 表示不缩放
+     * @param timings      各阶段耗时（输出参数）
+     * @return 压缩后的 JPEG 内容，失败返回null
+     */
+    public static byte[] captureWebPageScreenshot(WebDriver webDriver, String webUrl, Duration readyTimeout,
+                                                  int maxWidth, ScreenshotTimings timings){
         if (StrUtil.isBlank(webUrl)){
             log.error("网页URL为空");
             return null;
         }
         try {
-            //创建临时目录
-            String rootPath= System.getProperty("user.dir") + File.separator + "temp" + File.separator +
-                    "screenshot" + File.separator + UUID.randomUUID().toString().substring(0, 8);
-            FileUtil.mkdir(rootPath);
-            //图片后缀
-            final String IMAGE_SUFFIX =".png";
-            //原始截图路径
-            String imageSavePath=rootPath+File.separator+ RandomUtil.randomNumbers(5)
-                    + IMAGE_SUFFIX;
             //访问网页
+            long phaseStart = System.currentTimeMillis();
             webDriver.get(webUrl);
-            //等待页面完成加载
-            waitForPageLoad();
+            timings.setNavigateMillis(System.currentTimeMillis() - phaseStart);
+            //等待页面就绪
+            phaseStart = System.currentTimeMillis();
+            timings.setReady(waitForPageReady(webDriver, readyTimeout));
+            timings.setReadyMillis(System.currentTimeMillis() - phaseStart);
             //截图
+            phaseStart = System.currentTimeMillis();
             byte[] screenshotBytes = ((TakesScreenshot) webDriver).getScreenshotAs(OutputType.BYTES);
-            //保存原始截图
-            saveImage(screenshotBytes, imageSavePath);
-            log.info("原始截图保存成功: {}", imageSavePath);
+            timings.setCaptureMillis(System.currentTimeMillis() - phaseStart);
             //压缩截图
-            final String COMPRESS_IMAGE_SUFFIX = "_compressed.JPG" ;
-            String compressedImagePath = rootPath+File.separator+
-                    RandomUtil.randomNumbers(5)+COMPRESS_IMAGE_SUFFIX;
-            compressImage(imageSavePath, compressedImagePath);
-            log.info("压缩截图保存成功: {}", compressedImagePath);
-            //删除原始截图
-            FileUtil.del(imageSavePath);
-            log.info("原始截图删除成功: {}", imageSavePath);
-            return compressedImagePath;
+            phaseStart = System.currentTimeMillis();
+            byte[] compressedBytes = compressImage(screenshotBytes, maxWidth);
+            timings.setCompressMillis(System.currentTimeMillis() - phaseStart);
+            log.info("网页截图完成: {}，{} 字节 -> {} 字节，打开: {}ms，就绪: {}ms，截图: {}ms，压缩: {}ms",
+                    webUrl, screenshotBytes.length, compressedBytes.length, timings.getNavigateMillis(),
+                    timings.getReadyMillis(), timings.getCaptureMillis(), timings.getCompressMillis());
+            return compressedBytes;
         } catch (Exception e) {
             log.error("网页截图失败: {}", webUrl, e);
             return null;
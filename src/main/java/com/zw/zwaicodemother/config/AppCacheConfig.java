@@ -0,0 +1,39 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 应用实体缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app-cache")
+@Data
+public class AppCacheConfig {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存最大条数
+     */
+    private long localMaxSize = 10000;
+
+    /**
+     * 本地缓存过期时间（秒），失效广播丢失时的兜底
+     */
+    private long localTtlSeconds = 60;
+
+    /**
+     * Redis 缓存过期时间（秒）
+     */
+    private long redisTtlSeconds = 1800;
+
+    /**
+     * 缓存失效广播频道
+     */
+    private String invalidationChannel = "app:cache:invalidate";
+}
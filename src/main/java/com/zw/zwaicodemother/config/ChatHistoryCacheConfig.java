@@ -0,0 +1,39 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史热点窗口缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.hot-cache")
+@Data
+public class ChatHistoryCacheConfig {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个应用缓存的最新消息条数
+     */
+    private int windowSize = 50;
+
+    /**
+     * 缓存的消息内容总字符数上限（按消息长度计权淘汰）
+     */
+    private long maxTotalChars = 50_000_000;
+
+    /**
+     * 缓存过期时间（秒），失效广播丢失时的兜底
+     */
+    private long ttlSeconds = 300;
+
+    /**
+     * 缓存失效广播频道
+     */
+    private String invalidationChannel = "chat-history:cache:invalidate";
+}
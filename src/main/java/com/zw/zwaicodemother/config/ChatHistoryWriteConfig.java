@@ -0,0 +1,45 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史异步批量写入配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.write-behind")
+@Data
+public class ChatHistoryWriteConfig {
+
+    /**
+     * 是否开启异步批量写入，关闭时每条消息同步插入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单批最多插入的行数，积压达到该值时立即写入
+     */
+    private int batchSize = 100;
+
+    /**
+     * 定时写入间隔（毫秒）
+     */
+    private long flushIntervalMillis = 200;
+
+    /**
+     * 内存中最多积压的行数，超出后退化为同步插入
+     */
+    private int maxPendingRows = 10000;
+
+    /**
+     * 溢写文件目录，未入库的消息先追加到这里，进程崩溃重启后重放
+     * 不能位于任何静态资源目录下（启动时校验），否则对话内容可被直接下载
+     */
+    private String spillDir = "data/chat_history_spill";
+
+    /**
+     * 每次追加后是否强制刷盘（关闭时只能保证进程崩溃不丢，断电可能丢失最近的消息）
+     */
+    private boolean spillFsync = false;
+}
@@ -0,0 +1,50 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话记忆配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-memory")
+@Data
+public class ChatMemoryConfig {
+
+    /**
+     * 记忆的 token 预算（估算值，不含系统提示词和摘要），超出后从最早的对话开始淘汰
+     */
+    private int maxTokens = 24000;
+
+    /**
+     * 记忆最多保留的消息条数
+     */
+    private int maxMessages = 200;
+
+    /**
+     * 淘汰的低水位比例：超出预算（或条数上限）后一次淘汰到该比例以下，
+     * 之后若干轮只追加不改写，避免每轮都改写记忆开头导致前缀缓存失效
+     */
+    private double evictLowWaterRatio = 0.7;
+
+    /**
+     * 历史轮次中工具参数、工具结果超过该长度时折叠为简短引用
+     */
+    private int toolContentMaxChars = 300;
+
+    /**
+     * 是否在后台对淘汰的对话生成摘要
+     */
+    private boolean summaryEnabled = true;
+
+    /**
+     * 摘要最大字符数
+     */
+    private int summaryMaxChars = 2000;
+
+    /**
+     * 摘要线程数
+     */
+    private int summaryThreads = 2;
+}
@@ -0,0 +1,25 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成准入配置
+ * 控制同时调用大模型的生成任务数量和排队长度
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.admission")
+@Data
+public class GenerationAdmissionConfig {
+
+    /**
+     * 全局同时进行的生成任务上限
+     */
+    private int maxConcurrentGenerations = 10;
+
+    /**
+     * 等待队列最大长度，超出后直接拒绝
+     */
+    private int maxQueueSize = 50;
+}
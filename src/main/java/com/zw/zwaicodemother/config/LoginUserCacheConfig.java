@@ -0,0 +1,34 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 登录用户本地缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "login-user-cache")
+@Data
+public class LoginUserCacheConfig {
+
+    /**
+     * 是否开启缓存，关闭时每次获取登录用户都查询数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存最大条数
+     */
+    private long maxSize = 10000;
+
+    /**
+     * 本地缓存过期时间（秒），也是版本号递增失败时角色变更生效的最长延迟
+     */
+    private long ttlSeconds = 30;
+
+    /**
+     * Redis 中用户版本号的过期时间（秒），必须远大于本地缓存过期时间
+     */
+    private long versionTtlSeconds = 86400;
+}
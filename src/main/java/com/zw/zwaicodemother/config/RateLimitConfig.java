@@ -0,0 +1,43 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口限流配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitConfig {
+
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 限流模式：local 单机令牌桶，redis 分布式令牌桶（多实例部署时使用）
+     */
+    private String mode = "local";
+
+    /**
+     * 限流 key 前缀
+     */
+    private String keyPrefix = "rate_limit";
+
+    /**
+     * Redis 不可用时是否放行
+     */
+    private boolean failOpen = true;
+
+    /**
+     * 受信任的反向代理地址（支持单个 IP 或 IPv4 CIDR，如 10.0.0.0/8）
+     * 只有直连地址在列表中时才解析 X-Forwarded-For，为空表示直接使用连接地址
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+}
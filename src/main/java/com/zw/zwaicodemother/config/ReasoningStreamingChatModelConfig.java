@@ -1,7 +1,9 @@
 package com.zw.zwaicodemother.config;
 
+import com.zw.zwaicodemother.ai.listener.PromptCacheUsageListener;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import jakarta.annotation.Resource;
 import lombok.Data;
 import org.springframework.boot.autoconfigure.batch.BatchDataSource;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -9,6 +11,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.util.List;
+
 
 /*
 * 推理流式模型配置
@@ -20,6 +24,10 @@ import org.springframework.context.annotation.Primary;
 public class ReasoningStreamingChatModelConfig {
     private String baseUrl;
     private String apiKey;
+
+    @Resource
+    private PromptCacheUsageListener promptCacheUsageListener;
+
     //推理流式模型（用于Vue项目生成，带工具调用）
     @Bean
     public StreamingChatModel reasoningStreamingChatModel() {
@@ -37,6 +45,8 @@ public class ReasoningStreamingChatModelConfig {
                 .maxTokens(maxTokens)
                 .logRequests(true)
                 .logResponses(true)
+                // 记录前缀缓存命中情况（自动配置的模型由 starter 注入同一个监听器）
+                .listeners(List.of(promptCacheUsageListener))
                 .build();
     }
 }
@@ -20,6 +20,7 @@ import org.springframework.scheduling.annotation.Scheduled;
  * 方法：
  * - cleanupExpiredTempFiles(): 定时清理过期临时文件的核心方法
  * 注意事项：
+ * - 截图默认全程在内存中处理，只有开启 screenshot.debug-save-local 或测试时才会产生临时文件
  * - 定时任务在每日凌晨2点执行，避免业务高峰期
  * - 使用WebScreenshotUtils.cleanupTempFiles()实现核心清理逻辑
  * - 保持现有代码结构不变，仅添加定时任务功能
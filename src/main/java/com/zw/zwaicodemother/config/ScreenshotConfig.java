@@ -0,0 +1,59 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网页截图配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "screenshot")
+@Data
+public class ScreenshotConfig {
+
+    /**
+     * 浏览器池大小（同时进行的截图任务数）
+     */
+    private int poolSize = 2;
+
+    /**
+     * 单个浏览器最多截图次数，超过后关闭重建，避免内存泄漏
+     */
+    private int maxPagesPerDriver = 50;
+
+    /**
+     * 单个截图任务超时时间（秒），超时后强制关闭该浏览器
+     */
+    private int taskTimeoutSeconds = 60;
+
+    /**
+     * 等待页面就绪的截止时间（毫秒），超过后直接截图
+     */
+    private long readyTimeoutMillis = 10000;
+
+    /**
+     * 封面图最大宽度（像素），超过时等比缩小，小于等于 0 表示不缩放
+     */
+    private int coverMaxWidth = 1600;
+
+    /**
+     * 是否同时把截图保存到本地临时目录（仅调试使用，默认全程在内存中处理）
+     */
+    private boolean debugSaveLocal = false;
+
+    /**
+     * 截图缓存有效期（天），部署内容摘要相同时复用截图
+     */
+    private int cacheTtlDays = 30;
+
+    /**
+     * 浏览器窗口宽度
+     */
+    private int windowWidth = 1600;
+
+    /**
+     * 浏览器窗口高度
+     */
+    private int windowHeight = 900;
+}
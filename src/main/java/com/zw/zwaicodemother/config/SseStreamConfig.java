@@ -0,0 +1,34 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 生成结果 SSE 输出配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.sse")
+@Data
+public class SseStreamConfig {
+
+    /**
+     * 单帧最大字符数，攒够即发送
+     */
+    private int frameMaxChars = 4096;
+
+    /**
+     * 单帧最长攒批时间（毫秒），到时即发送
+     */
+    private long frameMaxDelayMillis = 50;
+
+    /**
+     * 每个流最多积压的待发送字符数，客户端接收过慢超过该值时断开该流
+     */
+    private int maxPendingChars = 1024 * 1024;
+
+    /**
+     * 心跳间隔（秒），防止代理在长时间无输出时断开连接
+     */
+    private long heartbeatSeconds = 15;
+}
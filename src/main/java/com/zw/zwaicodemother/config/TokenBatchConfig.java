@@ -0,0 +1,30 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 模型输出片段合并配置
+ * 模型每次回调只有 1~3 个字符，合并后再做序列化和后续处理
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.token-batch")
+@Data
+public class TokenBatchConfig {
+
+    /**
+     * 是否开启合并
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单批最大字符数，攒够即发送
+     */
+    private int maxChars = 256;
+
+    /**
+     * 单批最长等待时间（毫秒），到时即发送
+     */
+    private long maxDelayMillis = 30;
+}
@@ -0,0 +1,24 @@
+package com.zw.zwaicodemother.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Vue 项目构建配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "code-gen.build")
+@Data
+public class VueBuildConfig {
+
+    /**
+     * 同时进行的构建数量，小于等于 0 时按 CPU 核数的一半计算
+     */
+    private int maxConcurrentBuilds = 0;
+
+    /**
+     * 构建等待队列最大长度
+     */
+    private int maxQueueSize = 100;
+}
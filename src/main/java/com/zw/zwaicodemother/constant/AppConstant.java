@@ -21,6 +21,16 @@ public interface  AppConstant {
      */
     String CODE_DEPLOY_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_deploy";
 
+    /**
+     * 应用部署版本目录（历史版本和摘要清单，不在静态资源目录下，不对外暴露）
+     */
+    String CODE_DEPLOY_RELEASES_DIR = System.getProperty("user.dir") + "/data/code_deploy_releases";
+
+    /**
+     * Vue 项目共享依赖仓库目录（不在静态资源目录下，不对外暴露）
+     */
+    String NODE_MODULES_STORE_DIR = System.getProperty("user.dir") + "/data/node_modules_store";
+
     /**
      * 应用部署域名
      */
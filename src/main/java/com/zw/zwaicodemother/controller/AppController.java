@@ -5,21 +5,30 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
+import com.zw.zwaicodemother.ai.listener.PromptCacheUsageListener;
 import com.zw.zwaicodemother.annotation.AuthCheck;
+import com.zw.zwaicodemother.annotation.RateLimit;
 import com.zw.zwaicodemother.common.BaseResponse;
 import com.zw.zwaicodemother.common.DeleteRequest;
 import com.zw.zwaicodemother.common.ResultUtils;
 import com.zw.zwaicodemother.constant.AppConstant;
 import com.zw.zwaicodemother.constant.UserConstant;
+import com.zw.zwaicodemother.core.builder.BuildLogBuffer;
+import com.zw.zwaicodemother.core.builder.VueBuildScheduler;
+import com.zw.zwaicodemother.core.builder.VueBuildTask;
+import com.zw.zwaicodemother.core.stream.SseStreamShaper;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 import com.zw.zwaicodemother.exception.ThrowUtils;
+import com.zw.zwaicodemother.manager.GenerationAdmissionManager;
+import com.zw.zwaicodemother.manager.ScreenshotManager;
 import com.zw.zwaicodemother.model.dto.app.AppAddRequest;
 import com.zw.zwaicodemother.model.dto.app.AppDeployRequest;
 import com.zw.zwaicodemother.model.dto.app.AppQueryRequest;
 import com.zw.zwaicodemother.model.dto.app.AppUpdateRequest;
 import com.zw.zwaicodemother.model.entity.App;
 import com.zw.zwaicodemother.model.entity.User;
+import com.zw.zwaicodemother.model.enums.RateLimitTypeEnum;
 import com.zw.zwaicodemother.model.vo.AppVO;
 import com.zw.zwaicodemother.service.AppService;
 import com.zw.zwaicodemother.service.ProjectDownloadService;
@@ -57,6 +66,21 @@ public class AppController {
     @Resource
     private ProjectDownloadService projectDownloadService;
 
+    @Resource
+    private GenerationAdmissionManager generationAdmissionManager;
+
+    @Resource
+    private VueBuildScheduler vueBuildScheduler;
+
+    @Resource
+    private SseStreamShaper sseStreamShaper;
+
+    @Resource
+    private PromptCacheUsageListener promptCacheUsageListener;
+
+    @Resource
+    private ScreenshotManager screenshotManager;
+
     /**
      * 创建应用
      *
@@ -65,6 +89,8 @@ public class AppController {
      * @return 创建结果应用 id
      */
     @PostMapping("/add")
+    @RateLimit(limitType = RateLimitTypeEnum.USER, rate = 10, rateInterval = 60, message = "创建应用过于频繁，请稍后再试")
+    @RateLimit(limitType = RateLimitTypeEnum.IP, rate = 20, rateInterval = 60, message = "创建应用过于频繁，请稍后再试")
     public BaseResponse<Long> addApp(@RequestBody AppAddRequest appAddRequest, HttpServletRequest request) {
         ThrowUtils.throwIf(appAddRequest==null,ErrorCode.PARAMS_ERROR);
         //获取当前登录用户
@@ -284,6 +310,105 @@ public class AppController {
         return ResultUtils.success(appVOPage);
     }
 
+    /**
+     * 查看 Vue 项目构建队列统计（仅管理员）
+     *
+     * @return 构建统计
+     */
+    @GetMapping("/admin/build/statistics")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<VueBuildScheduler.BuildStatistics> getBuildStatistics() {
+        return ResultUtils.success(vueBuildScheduler.getStatistics());
+    }
+
+    /**
+     * 查看网页截图各阶段平均耗时（仅管理员）
+     *
+     * @return 截图阶段统计
+     */
+    @GetMapping("/admin/screenshot/statistics")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<ScreenshotManager.PhaseStatistics> getScreenshotStatistics() {
+        return ResultUtils.success(screenshotManager.getPhaseStatistics());
+    }
+
+    /**
+     * 查看模型调用 token 用量和前缀缓存命中率（仅管理员）
+     *
+     * @return token 用量统计
+     */
+    @GetMapping("/admin/ai/usage/statistics")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<PromptCacheUsageListener.PromptCacheStatistics> getAiUsageStatistics() {
+        return ResultUtils.success(promptCacheUsageListener.getStatistics());
+    }
+
+    /**
+     * 查询应用的 Vue 项目构建状态（仅本人）
+     *
+     * @param appId   应用ID
+     * @param request 请求对象
+     * @return 构建状态：IDLE / QUEUED / RUNNING
+     */
+    @GetMapping("/build/status")
+    public BaseResponse<String> getBuildStatus(@RequestParam Long appId, HttpServletRequest request) {
+        String projectPath = getOwnedProjectPath(appId, request);
+        return ResultUtils.success(vueBuildScheduler.getBuildStatus(projectPath).name());
+    }
+
+    /**
+     * 增量拉取应用最近一次 Vue 项目构建的日志（仅本人）
+     *
+     * @param appId   应用ID
+     * @param fromSeq 起始行序号（首次传 0，之后传上次返回的最后一行序号 + 1）
+     * @param request 请求对象
+     * @return 日志行；没有构建记录时返回空列表
+     */
+    @GetMapping("/build/log")
+    public BaseResponse<List<BuildLogBuffer.BuildLogLine>> getBuildLog(@RequestParam Long appId,
+                                                                     @RequestParam(defaultValue = "0") long fromSeq,
+                                                                     HttpServletRequest request) {
+        String projectPath = getOwnedProjectPath(appId, request);
+        VueBuildTask task = vueBuildScheduler.findTask(projectPath);
+        if (task == null) {
+            return ResultUtils.success(List.of());
+        }
+        return ResultUtils.success(task.getLog().readFrom(fromSeq));
+    }
+
+    /**
+     * 订阅应用的 Vue 项目构建进度（仅本人）
+     * 有进行中的构建时持续推送直到结束；否则推送最近一次构建的结果；都没有时直接结束
+     * 用于等待构建完成，避免为了拿到结果重复触发构建
+     *
+     * @param appId   应用ID
+     * @param request 请求对象
+     * @return 构建事件流
+     */
+    @GetMapping(value = "/build/watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> watchBuild(@RequestParam Long appId, HttpServletRequest request) {
+        String projectPath = getOwnedProjectPath(appId, request);
+        return sseStreamShaper.withHeartbeat(vueBuildScheduler.watch(projectPath, 0)
+                .map(buildEvent -> ServerSentEvent.<String>builder().event("build")
+                        .data(JSONUtil.toJsonStr(buildEvent))
+                        .build())
+                .concatWith(Mono.just(ServerSentEvent.<String>builder().event("done")
+                        .data("")
+                        .build())));
+    }
+
+    /**
+     * 校验应用归属并返回其生成代码目录
+     */
+    private String getOwnedProjectPath(Long appId, HttpServletRequest request) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        User loginUser = userService.getLoginUser(request);
+        App app = appService.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        ThrowUtils.throwIf(!app.getUserId().equals(loginUser.getId()), ErrorCode.NO_AUTH_ERROR);
+        return AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + app.getCodeGenType() + "_" + appId;
+    }
+
     /**
      * 根据 id 查看应用详情（仅管理员）
      *
@@ -309,6 +434,8 @@ public class AppController {
      * @return 生成结果流
      */
     @GetMapping(value = "/chat/gen/code",produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @RateLimit(limitType = RateLimitTypeEnum.USER, rate = 5, rateInterval = 60, message = "生成请求过于频繁，请稍后再试")
+    @RateLimit(limitType = RateLimitTypeEnum.GLOBAL, rate = 100, rateInterval = 60, capacity = 30, message = "系统繁忙，请稍后再试")
     public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
                                       @RequestParam String message,
                                       HttpServletRequest request) {
@@ -317,23 +444,34 @@ public class AppController {
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR,"用户消息不能为空");
 //        获取当前登录用户
         User loginUser =userService.getLoginUser(request);
-//        调用服务生成代码
-        Flux<String> contentFlux=appService.chatToGenCode(appId,message,loginUser);
-//        转化成ServiceSentFlux 格式
-
-        return contentFlux.map(chunk -> {
-            //将内容包装成JSON对象
-            Map<String,String> wrapper  =Map.of("d",chunk);
-            String jsonData = JSONUtil.toJsonStr(wrapper);
-            return ServerSentEvent.<String>builder()
-                    .data(jsonData)
-                    .build();
-        }).concatWith(Mono.just(
+        long requestTime = System.currentTimeMillis();
+//        调用服务生成代码（经过准入控制：同一应用只允许一个生成任务，超出全局并发时排队）
+        Flux<ServerSentEvent<String>> eventFlux = generationAdmissionManager.admit(appId,
+                //合并细碎片段后再包装，客户端消费慢时继续合并，积压超过上限时断开
+                () -> sseStreamShaper.coalesce(appService.chatToGenCode(appId, message, loginUser)).map(chunk -> {
+                    //将内容包装成JSON对象
+                    Map<String,String> wrapper  =Map.of("d",chunk);
+                    String jsonData = JSONUtil.toJsonStr(wrapper);
+                    return ServerSentEvent.<String>builder()
+                            .data(jsonData)
+                            .build();
+                }),
+                //排队位置事件
+                position -> ServerSentEvent.<String>builder().event("queue")
+                        .data(JSONUtil.toJsonStr(Map.of("position", position)))
+                        .build());
+        //Vue 项目生成完成后会提交构建，继续推送构建进度直到构建结束（其他类型没有构建任务，为空流）
+        String vueProjectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId;
+        Flux<ServerSentEvent<String>> buildFlux = vueBuildScheduler.watch(vueProjectPath, requestTime)
+                .map(buildEvent -> ServerSentEvent.<String>builder().event("build")
+                        .data(JSONUtil.toJsonStr(buildEvent))
+                        .build());
+        return sseStreamShaper.withHeartbeat(eventFlux.concatWith(buildFlux).concatWith(Mono.just(
                 //发送结束事件
                 ServerSentEvent.<String>builder().event("done")
                         .data("")
                         .build()
-        ));
+        )));
     }
     /**
      * 应用部署
@@ -11,6 +11,7 @@ import com.zw.zwaicodemother.exception.ThrowUtils;
 import com.zw.zwaicodemother.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.zw.zwaicodemother.model.entity.ChatHistory;
 import com.zw.zwaicodemother.model.entity.User;
+import com.zw.zwaicodemother.model.vo.ChatHistoryCursorPageVO;
 import com.zw.zwaicodemother.service.ChatHistoryService;
 import com.zw.zwaicodemother.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -43,17 +44,21 @@ public class ChatHistoryController {
      *
      * @param appId          应用ID
      * @param pageSize       页面大小
-     * @param lastCreateTime 最后一条记录的创建时间
+     * @param lastCreateTime 上一页最后一条记录的创建时间
+     * @param lastId         上一页最后一条记录的ID
+     * @param withMessage    是否返回消息内容
      * @param request        请求
-     * @return 对话历史分页
+     * @return 对话历史游标分页
      */
     @GetMapping("/app/{appId}")
-    public BaseResponse<Page<ChatHistory>>  listAppChatHistoryByPage(@PathVariable Long appId,
+    public BaseResponse<ChatHistoryCursorPageVO>  listAppChatHistoryByPage(@PathVariable Long appId,
                                                               @RequestParam(defaultValue = "10") int pageSize,
                                                               @RequestParam(required = false) LocalDateTime lastCreateTime,
+                                                              @RequestParam(required = false) Long lastId,
+                                                              @RequestParam(defaultValue = "true") boolean withMessage,
                                                               HttpServletRequest request){
         User loginUser=userService.getLoginUser(request);
-        Page<ChatHistory> result  = chatHistoryService.listAppChatHistoryByPage(appId,pageSize,lastCreateTime,loginUser);
+        ChatHistoryCursorPageVO result  = chatHistoryService.listAppChatHistoryByCursor(appId,pageSize,lastCreateTime,lastId,withMessage,loginUser);
         return ResultUtils.success(result);
     }
 
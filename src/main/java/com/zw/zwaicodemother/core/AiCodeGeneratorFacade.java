@@ -1,16 +1,21 @@
 package com.zw.zwaicodemother.core;
 
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.StrUtil;
 import com.zw.zwaicodemother.ai.AiCodeGeneratorService;
 import com.zw.zwaicodemother.ai.AiCodeGeneratorServiceFactory;
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
 import com.zw.zwaicodemother.ai.model.HtmlCodeResult;
 import com.zw.zwaicodemother.ai.model.MultiFileCodeResult;
 import com.zw.zwaicodemother.ai.model.message.AiResponseMessage;
+import com.zw.zwaicodemother.ai.model.message.StreamMessage;
 import com.zw.zwaicodemother.ai.model.message.ToolExecutedMessage;
 import com.zw.zwaicodemother.ai.model.message.ToolRequestMessage;
+import com.zw.zwaicodemother.config.TokenBatchConfig;
 import com.zw.zwaicodemother.core.parser.CodeParserExecutor;
+import com.zw.zwaicodemother.core.parser.StreamingCodeParser;
 import com.zw.zwaicodemother.core.saver.CodeFileSaverExecutor;
+import com.zw.zwaicodemother.core.stream.ChunkCoalescer;
+import com.zw.zwaicodemother.core.stream.TokenBatcher;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 import dev.langchain4j.model.chat.response.ChatResponse;
@@ -22,6 +27,10 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * AI 代码生成门面类，组合代码生成和保存功能
@@ -33,25 +42,56 @@ public class AiCodeGeneratorFacade {
     @Resource
     private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
 
+    @Resource
+    private TokenBatchConfig tokenBatchConfig;
+
 
 
     /**
      * 通用流式代码处理方法
+     * 边接收边解析，每个代码块闭合后立即写入文件，无需等待整个响应结束
      *
      * @param codeStream  代码流
      * @param codeGenType 代码生成类型
      *  @param appId           应用 ID
      * @return 流式响应
      */
-    private Flux<String> processCodeStream (Flux<String> codeStream , CodeGenTypeEnum codeGenType, Long appId) {
-        StringBuilder codeBuilder = new StringBuilder();
+    private Flux<StreamMessage> processCodeStream (Flux<String> codeStream , CodeGenTypeEnum codeGenType, Long appId) {
+        //已写入的文件，同一文件只保存第一个代码块（与正则解析取第一个匹配保持一致）
+        Set<String> savedFileNames = new HashSet<>();
+        StreamingCodeParser streamingCodeParser = new StreamingCodeParser((language, code) -> {
+            try {
+                String fileName = CodeFileSaverExecutor.resolveCodeBlockFileName(language, codeGenType);
+                if (fileName == null || savedFileNames.contains(fileName)) {
+                    return false;
+                }
+                if (CodeFileSaverExecutor.executeCodeBlockSaver(language, code, codeGenType, appId) != null) {
+                    savedFileNames.add(fileName);
+                    log.info("代码块保存成功，appId: {}, 文件: {}", appId, fileName);
+                    return true;
+                }
+            } catch (Exception e) {
+                log.error("代码块保存失败：{}", e.getMessage());
+            }
+            return false;
+        });
         return codeStream.doOnNext(chunk -> {
-            //实时收集代码片段
-            codeBuilder.append(chunk);
+            //实时解析代码片段
+            streamingCodeParser.onNext(chunk);
         }).doOnComplete(()->{
-            //流式返回完成后保存代码
+            streamingCodeParser.onComplete();
+            if (!savedFileNames.isEmpty()) {
+                //模型省略的文件要清空，避免残留上一轮的旧内容（与整体保存行为一致）
+                try {
+                    CodeFileSaverExecutor.executeClearUnsavedFiles(savedFileNames, codeGenType, appId);
+                } catch (Exception e) {
+                    log.error("清理未输出文件失败：{}", e.getMessage());
+                }
+                return;
+            }
+            //没有解析出任何代码块时，退回到整体解析（例如 HTML 模式直接输出了裸代码）
             try{
-                String completeCode = codeBuilder.toString();
+                String completeCode = StrUtil.nullToEmpty(streamingCodeParser.getUnfencedContent());
                 //使用执行器解析代码
                 Object paresdResult = CodeParserExecutor.executeParser(completeCode,codeGenType);
                 //使用执行器保存代码
@@ -60,7 +100,7 @@ public class AiCodeGeneratorFacade {
             }catch (Exception e){
                 log.error("保存失败：{}" ,e.getMessage());
             }
-        });
+        }).<StreamMessage>map(AiResponseMessage::new);
     }
 
     /**
@@ -75,23 +115,27 @@ public class AiCodeGeneratorFacade {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
-        //根据appID获取AI服务
-        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
+        //获取该生成类型的 AI 服务，对话记忆按 appId 区分
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(codeGenTypeEnum);
 
-        return switch (codeGenTypeEnum) {
-            case HTML -> {
-                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(Math.toIntExact(appId),userMessage);
-                yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML, appId);
-            }
-            case MULTI_FILE -> {
-                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(userMessage);
-                yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE, appId);
-            }
-            default -> {
-                String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
-            }
-        };
+        try {
+            return switch (codeGenTypeEnum) {
+                case HTML -> {
+                    HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(appId,userMessage);
+                    yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML, appId);
+                }
+                case MULTI_FILE -> {
+                    MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(appId, userMessage);
+                    yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE, appId);
+                }
+                default -> {
+                    String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
+                }
+            };
+        } finally {
+            evictChatMemory(aiCodeGeneratorService, appId);
+        }
     }
 
 
@@ -103,21 +147,21 @@ public class AiCodeGeneratorFacade {
      *
      * @return 保存的目录
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage,
+    public Flux<StreamMessage> generateAndSaveCodeStream(String userMessage,
                                                   CodeGenTypeEnum codeGenTypeEnum,Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
-        //根据appID获取AI服务
-        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId,codeGenTypeEnum);
+        //获取该生成类型的 AI 服务，对话记忆按 appId 区分
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(codeGenTypeEnum);
 
-        return switch (codeGenTypeEnum) {
+        Flux<StreamMessage> messageStream = switch (codeGenTypeEnum) {
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
+                Flux<String> codeStream = batchTokens(aiCodeGeneratorService.generateHtmlCodeStream(appId, userMessage));
                 yield processCodeStream(codeStream, codeGenTypeEnum.HTML, appId);
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
+                Flux<String> codeStream = batchTokens(aiCodeGeneratorService.generateMultiFileCodeStream(appId, userMessage));
                 yield  processCodeStream(codeStream, codeGenTypeEnum.MULTI_FILE, appId);
             }
             case VUE_PROJECT -> {
@@ -129,38 +173,90 @@ public class AiCodeGeneratorFacade {
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
             }
         };
+        //完成、异常、客户端断开后释放服务内部缓存的记忆对象，避免按 appId 无限增长
+        return messageStream.doFinally(signalType -> evictChatMemory(aiCodeGeneratorService, appId));
+    }
+
+    /**
+     * 释放 AI 服务内部缓存的对话记忆对象（Redis 中的记忆不受影响）
+     */
+    private void evictChatMemory(AiCodeGeneratorService aiCodeGeneratorService, Long appId) {
+        try {
+            aiCodeGeneratorService.evictChatMemory(appId);
+        } catch (Exception e) {
+            log.warn("释放对话记忆对象失败，appId: {}, 原因: {}", appId, e.getMessage());
+        }
     }
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
+     * 直接传递消息对象，不做序列化；模型片段先合并成批，工具调用事件到达前先发出已攒的片段，保证顺序
      *
      * @param tokenStream TokenStream 对象
-     * @return Flux<String> 流式响应
+     * @return 流式消息
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream) {
         return Flux.create(sink -> {
+            Consumer<String> responseEmitter = text -> sink.next(new AiResponseMessage(text));
+            TokenBatcher tokenBatcher = tokenBatchConfig.isEnabled()
+                    ? new TokenBatcher(tokenBatchConfig.getMaxChars(),
+                    Duration.ofMillis(tokenBatchConfig.getMaxDelayMillis()), responseEmitter)
+                    : null;
+            // 客户端断开时不再发送剩余片段
+            sink.onCancel(() -> {
+                if (tokenBatcher != null) {
+                    tokenBatcher.discard();
+                }
+            });
             tokenStream.onPartialResponse((String partialResponse) -> {
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                        if (tokenBatcher != null) {
+                            tokenBatcher.append(partialResponse);
+                        } else {
+                            responseEmitter.accept(partialResponse);
+                        }
                     })
                     .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                        flushTokens(tokenBatcher);
+                        sink.next(new ToolRequestMessage(toolExecutionRequest));
                     })
                     .onToolExecuted((ToolExecution toolExecution) -> {
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                        flushTokens(tokenBatcher);
+                        sink.next(new ToolExecutedMessage(toolExecution));
                     })
                     .onCompleteResponse((ChatResponse response) -> {
+                        if (tokenBatcher != null) {
+                            tokenBatcher.close();
+                        }
                         sink.complete();
                     })
                     .onError((Throwable error) -> {
                         error.printStackTrace();
+                        if (tokenBatcher != null) {
+                            tokenBatcher.close();
+                        }
                         sink.error(error);
                     })
                     .start();
         });
     }
 
+    private void flushTokens(TokenBatcher tokenBatcher) {
+        if (tokenBatcher != null) {
+            tokenBatcher.flush();
+        }
+    }
+
+    /**
+     * 合并模型输出片段（HTML、MULTI_FILE 模式）
+     */
+    private Flux<String> batchTokens(Flux<String> codeStream) {
+        if (!tokenBatchConfig.isEnabled()) {
+            return codeStream;
+        }
+        // 这里只做合并，积压上限由 SSE 输出端控制
+        return ChunkCoalescer.coalesce(codeStream, tokenBatchConfig.getMaxChars(),
+                Duration.ofMillis(tokenBatchConfig.getMaxDelayMillis()), Integer.MAX_VALUE);
+    }
+
     /**
      * 生成 HTML 模式的代码并保存（流式）
      *
@@ -2,21 +2,18 @@ package com.zw.zwaicodemother.core;
 
 import com.zw.zwaicodemother.ai.model.HtmlCodeResult;
 import com.zw.zwaicodemother.ai.model.MultiFileCodeResult;
+import com.zw.zwaicodemother.core.parser.CodeFenceScanner;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * 代码解析器
  * 提供静态方法解析不同类型的代码内容
+ * 代码块提取委托给 CodeFenceScanner，与 core.parser 下的解析器保持一致
  *
  * @author zw
  */
 public class CodeParser {
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     /**
      * 解析 HTML 单文件代码
      */
@@ -38,10 +35,11 @@ public class CodeParser {
      */
     public static MultiFileCodeResult parseMultiFileCode(String codeContent) {
         MultiFileCodeResult result = new MultiFileCodeResult();
-        // 提取各类代码
-        String htmlCode = extractCodeByPattern(codeContent, HTML_CODE_PATTERN);
-        String cssCode = extractCodeByPattern(codeContent, CSS_CODE_PATTERN);
-        String jsCode = extractCodeByPattern(codeContent, JS_CODE_PATTERN);
+        // 一次扫描出所有代码块，再提取各类代码
+        List<CodeFenceScanner.CodeBlock> codeBlocks = CodeFenceScanner.scan(codeContent);
+        String htmlCode = CodeFenceScanner.findFirst(codeBlocks, "html");
+        String cssCode = CodeFenceScanner.findFirst(codeBlocks, "css");
+        String jsCode = CodeFenceScanner.findFirst(codeBlocks, "js", "javascript");
         // 设置HTML代码
         if (htmlCode != null && !htmlCode.trim().isEmpty()) {
             result.setHtmlCode(htmlCode.trim());
@@ -64,26 +62,7 @@ public class CodeParser {
      * @return HTML代码
      */
     private static String extractHtmlCode(String content) {
-        Matcher matcher = HTML_CODE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
-
-    /**
-     * 根据正则模式提取代码
-     *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
-     */
-    private static String extractCodeByPattern(String content, Pattern pattern) {
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+        return CodeFenceScanner.findFirst(CodeFenceScanner.scan(content), "html");
     }
 
 }
@@ -0,0 +1,107 @@
+package com.zw.zwaicodemother.core.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 构建日志环形缓冲区
+ * 只保留最近 capacity 行，每行带递增序号，读取方可以按序号增量拉取（实时尾随），
+ * 也可以注册监听器在新行写入时立即收到推送
+ */
+public class BuildLogBuffer {
+
+    /**
+     * 单行最大长度，超出截断（防止压缩后的单行产物撑爆内存）
+     */
+    private static final int MAX_LINE_LENGTH = 2000;
+
+    private final BuildLogLine[] lines;
+
+    private final List<Consumer<BuildLogLine>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 下一行的序号（从 0 开始），同时也是写入过的总行数
+     */
+    private long nextSeq;
+
+    /**
+     * 日志行
+     *
+     * @param seq    序号
+     * @param stream 来源：stdout / stderr / system
+     * @param text   内容（已去除终端颜色控制符）
+     * @param time   写入时间戳
+     */
+    public record BuildLogLine(long seq, String stream, String text, long time) {
+    }
+
+    public BuildLogBuffer(int capacity) {
+        this.lines = new BuildLogLine[Math.max(1, capacity)];
+    }
+
+    /**
+     * 追加一行
+     */
+    public void append(String stream, String text) {
+        if (text.length() > MAX_LINE_LENGTH) {
+            text = text.substring(0, MAX_LINE_LENGTH) + "...";
+        }
+        BuildLogLine line;
+        synchronized (this) {
+            line = new BuildLogLine(nextSeq, stream, text, System.currentTimeMillis());
+            lines[(int) (nextSeq % lines.length)] = line;
+            nextSeq++;
+        }
+        for (Consumer<BuildLogLine> listener : listeners) {
+            try {
+                listener.accept(line);
+            } catch (RuntimeException ignored) {
+                // 监听方异常不影响构建
+            }
+        }
+    }
+
+    /**
+     * 读取序号大于等于 fromSeq 的日志（已被覆盖的部分直接跳过）
+     */
+    public synchronized List<BuildLogLine> readFrom(long fromSeq) {
+        long start = Math.max(fromSeq, Math.max(0, nextSeq - lines.length));
+        List<BuildLogLine> result = new ArrayList<>((int) Math.max(0, nextSeq - start));
+        for (long seq = start; seq < nextSeq; seq++) {
+            result.add(lines[(int) (seq % lines.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * 读取最后 n 行
+     */
+    public synchronized List<BuildLogLine> tail(int n) {
+        return readFrom(nextSeq - n);
+    }
+
+    /**
+     * 将最后 n 行拼接为文本（用于错误日志）
+     */
+    public String tailText(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (BuildLogLine line : tail(n)) {
+            sb.append(line.text()).append('\n');
+        }
+        return sb.toString().trim();
+    }
+
+    public synchronized long getNextSeq() {
+        return nextSeq;
+    }
+
+    public void addListener(Consumer<BuildLogLine> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<BuildLogLine> listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,203 @@
+package com.zw.zwaicodemother.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import com.zw.zwaicodemother.constant.AppConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 共享依赖仓库
+ * 生成的 Vue 项目技术栈基本一致，依赖完全相同的项目共用同一份 node_modules：
+ * - 仓库目录：{共享依赖根目录}/{依赖摘要}/node_modules，位于静态资源目录之外
+ * - 项目中的 node_modules 是指向仓库目录的符号链接
+ * - 依赖摘要由 package.json 和锁文件计算（见 VueBuildCache）
+ * - 定时清理没有任何项目引用的仓库目录
+ * 不支持符号链接的文件系统上自动退化为每个项目独立安装
+ * 仓库被多个应用共用，AI 文件工具会拒绝访问跟随符号链接后位于项目目录之外的路径（见 BaseTool）
+ */
+@Slf4j
+@Component
+public class NodeModulesStore {
+
+    private static final String NODE_MODULES = "node_modules";
+
+    /**
+     * 新建的仓库目录在该时间内不会被清理，避免清理正在发布中的目录
+     */
+    private static final Duration GC_GRACE_PERIOD = Duration.ofHours(24);
+
+    /**
+     * 依赖摘要锁分段数
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path storeRoot = Path.of(AppConstant.NODE_MODULES_STORE_DIR);
+
+    /**
+     * 依赖摘要分段锁，锁数量固定，不随依赖摘要增长
+     */
+    private final Object[] digestLocks = new Object[LOCK_STRIPES];
+
+    public NodeModulesStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            digestLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 仓库中已有相同依赖时，把项目的 node_modules 链接过去
+     *
+     * @param projectDir    项目目录
+     * @param installDigest 依赖摘要
+     * @return 是否链接成功（成功后无需再安装依赖）
+     */
+    public boolean linkIfPresent(File projectDir, String installDigest) {
+        synchronized (lockOf(installDigest)) {
+            Path storedModules = storeRoot.resolve(installDigest).resolve(NODE_MODULES);
+            if (!Files.isDirectory(storedModules)) {
+                return false;
+            }
+            try {
+                Path projectModules = projectDir.toPath().resolve(NODE_MODULES);
+                removeProjectModules(projectModules);
+                Files.createSymbolicLink(projectModules, storedModules.toAbsolutePath());
+                // 刷新修改时间，防止与清理任务并发时被误删
+                storedModules.getParent().toFile().setLastModified(System.currentTimeMillis());
+                log.info("复用共享依赖：{} -> {}", projectDir.getName(), installDigest);
+                return true;
+            } catch (UnsupportedOperationException | IOException e) {
+                log.warn("链接共享依赖失败，改为独立安装：{}", e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 安装前调用：如果项目的 node_modules 是指向仓库的链接，先断开，避免 install 修改共享目录
+     *
+     * @param projectDir 项目目录
+     */
+    public void detach(File projectDir) {
+        Path projectModules = projectDir.toPath().resolve(NODE_MODULES);
+        if (Files.isSymbolicLink(projectModules)) {
+            try {
+                Files.delete(projectModules);
+            } catch (IOException e) {
+                log.warn("断开共享依赖链接失败：{}", projectModules, e);
+            }
+        }
+    }
+
+    /**
+     * 安装完成后调用：把项目的 node_modules 发布到仓库并替换为链接
+     *
+     * @param projectDir    项目目录
+     * @param installDigest 安装后的依赖摘要
+     */
+    public void publish(File projectDir, String installDigest) {
+        Path projectModules = projectDir.toPath().resolve(NODE_MODULES);
+        if (!Files.isDirectory(projectModules, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        synchronized (lockOf(installDigest)) {
+            Path storedModules = storeRoot.resolve(installDigest).resolve(NODE_MODULES);
+            try {
+                if (Files.isDirectory(storedModules)) {
+                    // 其他项目已经发布了相同的依赖，丢弃本地副本
+                    FileUtil.del(projectModules.toFile());
+                } else {
+                    Files.createDirectories(storedModules.getParent());
+                    Files.move(projectModules, storedModules, StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.createSymbolicLink(projectModules, storedModules.toAbsolutePath());
+                log.info("发布共享依赖：{} -> {}", projectDir.getName(), installDigest);
+            } catch (UnsupportedOperationException | IOException e) {
+                log.warn("发布共享依赖失败，项目保留独立依赖：{}", e.getMessage());
+                // 移动成功但链接失败时，复制回项目目录保证可用
+                if (!Files.exists(projectModules) && Files.isDirectory(storedModules)) {
+                    FileUtil.copyContent(storedModules.toFile(), projectModules.toFile(), true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 清理没有项目引用的仓库目录，每日凌晨3点执行
+     *
+     * @return 清理的目录数量
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public int collectGarbage() {
+        File[] entries = storeRoot.toFile().listFiles(File::isDirectory);
+        if (entries == null || entries.length == 0) {
+            return 0;
+        }
+        Set<Path> referenced = findReferencedEntries();
+        long expireTime = System.currentTimeMillis() - GC_GRACE_PERIOD.toMillis();
+        int deletedCount = 0;
+        for (File entry : entries) {
+            if (referenced.contains(entry.toPath().toAbsolutePath().normalize()) || entry.lastModified() > expireTime) {
+                continue;
+            }
+            synchronized (lockOf(entry.getName())) {
+                if (entry.lastModified() > expireTime) {
+                    continue;
+                }
+                if (FileUtil.del(entry)) {
+                    deletedCount++;
+                    log.info("清理未被引用的共享依赖：{}", entry.getName());
+                }
+            }
+        }
+        log.info("共享依赖清理完成，共 {} 个，清理 {} 个", entries.length, deletedCount);
+        return deletedCount;
+    }
+
+    /**
+     * 扫描所有生成项目，收集被引用的仓库目录
+     */
+    private Set<Path> findReferencedEntries() {
+        Set<Path> referenced = new HashSet<>();
+        File[] projects = new File(AppConstant.CODE_OUTPUT_ROOT_DIR).listFiles(File::isDirectory);
+        if (projects == null) {
+            return referenced;
+        }
+        for (File project : projects) {
+            Path projectModules = project.toPath().resolve(NODE_MODULES);
+            if (!Files.isSymbolicLink(projectModules)) {
+                continue;
+            }
+            try {
+                Path target = Files.readSymbolicLink(projectModules);
+                // 链接目标为 {仓库目录}/{摘要}/node_modules
+                referenced.add(projectModules.resolveSibling(target).toAbsolutePath().normalize().getParent());
+            } catch (IOException e) {
+                log.warn("读取依赖链接失败：{}", projectModules);
+            }
+        }
+        return referenced;
+    }
+
+    private void removeProjectModules(Path projectModules) throws IOException {
+        if (Files.isSymbolicLink(projectModules)) {
+            Files.delete(projectModules);
+        } else if (Files.exists(projectModules)) {
+            FileUtil.del(projectModules.toFile());
+        }
+    }
+
+    private Object lockOf(String installDigest) {
+        return digestLocks[Math.floorMod(installDigest.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,126 @@
+package com.zw.zwaicodemother.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import com.zw.zwaicodemother.utils.FileDigestUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vue 项目构建缓存
+ * 两级缓存：
+ * 1. 依赖安装：package.json 和锁文件的摘要与上次成功安装一致时跳过 install
+ *    （标记文件放在 node_modules 中，node_modules 被删除时缓存自然失效）
+ * 2. 项目构建：源码摘要与上次成功构建一致且 dist 仍然存在时跳过 build
+ */
+@Slf4j
+@Component
+public class VueBuildCache {
+
+    /**
+     * 参与依赖安装摘要的文件
+     */
+    private static final List<String> INSTALL_INPUT_FILES = List.of(
+            "package.json", "package-lock.json", "pnpm-lock.yaml", "yarn.lock", ".npmrc");
+
+    /**
+     * 依赖安装标记文件（位于 node_modules 下）
+     */
+    private static final String INSTALL_MARKER = ".zw-install-digest";
+
+    /**
+     * 构建标记文件（位于项目根目录，不参与源码摘要）
+     */
+    private static final String BUILD_MARKER = ".zw-build-digest";
+
+    /**
+     * 不参与源码摘要的文件和目录
+     */
+    private static final Set<String> SOURCE_EXCLUDED_NAMES = Set.of(
+            "node_modules", "dist", ".git", ".vite", BUILD_MARKER);
+
+    /**
+     * 计算依赖安装摘要
+     */
+    public String computeInstallDigest(File projectDir) {
+        Map<String, String> inputDigests = new LinkedHashMap<>();
+        for (String fileName : INSTALL_INPUT_FILES) {
+            File file = new File(projectDir, fileName);
+            if (file.isFile()) {
+                inputDigests.put(fileName, FileDigestUtils.digestFile(file));
+            }
+        }
+        return FileDigestUtils.digestTree(inputDigests);
+    }
+
+    /**
+     * 计算源码摘要（不含 node_modules、dist 等构建产物）
+     */
+    public String computeSourceDigest(File projectDir) {
+        return FileDigestUtils.digestTree(FileDigestUtils.digestFiles(projectDir, SOURCE_EXCLUDED_NAMES));
+    }
+
+    /**
+     * 依赖是否已按当前 package.json 安装
+     */
+    public boolean isInstallUpToDate(File projectDir, String installDigest) {
+        File marker = new File(projectDir, "node_modules" + File.separator + INSTALL_MARKER);
+        return installDigest.equals(readMarker(marker));
+    }
+
+    /**
+     * 记录成功安装
+     */
+    public void markInstalled(File projectDir, String installDigest) {
+        writeMarker(new File(projectDir, "node_modules" + File.separator + INSTALL_MARKER), installDigest);
+    }
+
+    /**
+     * dist 是否已由当前源码构建
+     */
+    public boolean isBuildUpToDate(File projectDir, String sourceDigest) {
+        File indexFile = new File(projectDir, "dist" + File.separator + "index.html");
+        return indexFile.isFile() && sourceDigest.equals(readMarker(new File(projectDir, BUILD_MARKER)));
+    }
+
+    /**
+     * 记录成功构建
+     */
+    public void markBuilt(File projectDir, String sourceDigest) {
+        writeMarker(new File(projectDir, BUILD_MARKER), sourceDigest);
+    }
+
+    /**
+     * 使构建缓存失效（构建失败时调用，避免残留的 dist 被误认为最新）
+     */
+    public void invalidateBuild(File projectDir) {
+        FileUtil.del(new File(projectDir, BUILD_MARKER));
+    }
+
+    private String readMarker(File marker) {
+        if (!marker.isFile()) {
+            return null;
+        }
+        try {
+            return FileUtil.readString(marker, StandardCharsets.UTF_8).trim();
+        } catch (Exception e) {
+            log.warn("读取构建缓存标记失败: {}", marker.getAbsolutePath());
+            return null;
+        }
+    }
+
+    private void writeMarker(File marker, String digest) {
+        try {
+            FileUtil.writeString(digest, marker, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            // 缓存写入失败只影响下次是否重新构建
+            log.warn("写入构建缓存标记失败: {}", marker.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.zw.zwaicodemother.core.builder;
+
+import com.zw.zwaicodemother.model.enums.VueBuildEventTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vue 项目构建进度事件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VueBuildEvent {
+
+    /**
+     * 事件类型，见 {@link VueBuildEventTypeEnum}
+     */
+    private String type;
+
+    /**
+     * 从提交构建到本事件经过的时间（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 说明信息（失败原因等）
+     */
+    private String message;
+
+    /**
+     * 各阶段耗时，仅结束事件携带
+     */
+    private VueBuildTimings timings;
+
+    public boolean isTerminal() {
+        VueBuildEventTypeEnum typeEnum = VueBuildEventTypeEnum.getEnumByValue(type);
+        return typeEnum != null && typeEnum.isTerminal();
+    }
+}
@@ -0,0 +1,332 @@
+package com.zw.zwaicodemother.core.builder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zw.zwaicodemother.config.VueBuildConfig;
+import com.zw.zwaicodemother.model.enums.VueBuildEventTypeEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Vue 项目构建调度器
+ * 功能：
+ * 1. 固定数量的构建槽位，避免突发请求同时派生大量 Node 构建进程
+ * 2. FIFO 等待队列，同一项目排队中的请求合并为一个
+ * 3. 同一项目有新的构建请求时取消正在执行的旧构建，旧构建的调用方拿到新构建的结果
+ * 4. 提供构建状态和队列统计
+ */
+@Slf4j
+@Component
+public class VueBuildScheduler {
+
+    /**
+     * 构建失败事件中附带的最近日志行数
+     */
+    private static final int FAILED_MESSAGE_LINES = 10;
+
+    @Resource
+    private VueProjectBuilder vueProjectBuilder;
+
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+
+    /**
+     * 保护 queuedTasks 和 runningTasks
+     */
+    private final Object lock = new Object();
+
+    /**
+     * 等待中的任务，key 为项目绝对路径，按提交顺序排列
+     */
+    private final LinkedHashMap<String, VueBuildTask> queuedTasks = new LinkedHashMap<>();
+
+    /**
+     * 执行中的任务，key 为项目绝对路径
+     */
+    private final Map<String, VueBuildTask> runningTasks = new HashMap<>();
+
+    /**
+     * 最近结束的任务（保留日志和耗时供查询），key 为项目绝对路径
+     */
+    private final Cache<String, VueBuildTask> recentTasks = Caffeine.newBuilder()
+            .maximumSize(200)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    private ExecutorService buildExecutor;
+
+    private int buildSlots;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong mergedCount = new AtomicLong();
+    private final AtomicLong supersededCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong succeededCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final LongAdder totalBuildMillis = new LongAdder();
+
+    /**
+     * 构建状态
+     */
+    public enum BuildStatus {
+        IDLE, QUEUED, RUNNING
+    }
+
+    /**
+     * 构建统计
+     *
+     * @param buildSlots      构建槽位数
+     * @param runningBuilds   执行中的构建数
+     * @param queuedBuilds    排队中的构建数
+     * @param submitted       提交总数
+     * @param merged          与排队中的请求合并的次数
+     * @param superseded      执行中被新请求取代的次数
+     * @param rejected        队列已满被拒绝的次数
+     * @param succeeded       构建成功次数
+     * @param failed          构建失败次数
+     * @param avgWaitMillis   平均排队耗时
+     * @param avgBuildMillis  平均构建耗时
+     */
+    public record BuildStatistics(int buildSlots, int runningBuilds, int queuedBuilds, long submitted, long merged,
+                                  long superseded, long rejected, long succeeded, long failed,
+                                  long avgWaitMillis, long avgBuildMillis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        int configured = vueBuildConfig.getMaxConcurrentBuilds();
+        buildSlots = configured > 0 ? configured : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        buildExecutor = Executors.newFixedThreadPool(buildSlots, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("vue-build-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Vue 构建调度器初始化完成，构建槽位: {}，队列上限: {}", buildSlots, vueBuildConfig.getMaxQueueSize());
+    }
+
+    /**
+     * 提交构建（异步）
+     *
+     * @param projectPath 项目路径
+     * @return 构建结果；队列已满时直接返回 false
+     */
+    public CompletableFuture<Boolean> submit(String projectPath) {
+        String key = new File(projectPath).getAbsolutePath();
+        submittedCount.incrementAndGet();
+        VueBuildTask task;
+        synchronized (lock) {
+            VueBuildTask queued = queuedTasks.get(key);
+            if (queued != null) {
+                // 排队中的任务还没开始，开始时会构建最新的代码，直接合并
+                mergedCount.incrementAndGet();
+                return queued.getFuture();
+            }
+            if (queuedTasks.size() >= vueBuildConfig.getMaxQueueSize()) {
+                rejectedCount.incrementAndGet();
+                log.warn("构建队列已满，拒绝构建: {}", key);
+                return CompletableFuture.completedFuture(false);
+            }
+            task = new VueBuildTask(key);
+            VueBuildTask running = runningTasks.get(key);
+            if (running != null) {
+                // 正在构建的是旧代码，取消并由新任务取代
+                supersededCount.incrementAndGet();
+                log.info("项目有新的构建请求，取消正在执行的构建: {}", key);
+                running.supersede(task);
+            }
+            queuedTasks.put(key, task);
+            task.publish(VueBuildEventTypeEnum.QUEUED, null);
+        }
+        dispatch();
+        return task.getFuture();
+    }
+
+    /**
+     * 提交构建并等待结果（同步）
+     * 项目已有排队或执行中的构建时先等它结束，而不是取消它（源码没有变化，随后的构建会命中缓存）
+     *
+     * @param projectPath 项目路径
+     * @return 是否构建成功
+     */
+    public boolean buildProject(String projectPath) {
+        VueBuildTask active = findActiveTask(new File(projectPath).getAbsolutePath());
+        if (active != null) {
+            log.info("项目已有进行中的构建，等待其完成: {}", projectPath);
+            active.getFuture().join();
+        }
+        return submit(projectPath).join();
+    }
+
+    /**
+     * 订阅项目构建进度
+     * 有排队或执行中的构建时跟随该构建直到结束；否则回放 submittedAfter 之后提交的最近一次构建的结束事件；都没有时为空流
+     *
+     * @param projectPath    项目路径
+     * @param submittedAfter 只关心该时间戳之后提交的构建（毫秒）
+     * @return 构建事件流，以 done / failed 事件结束
+     */
+    public Flux<VueBuildEvent> watch(String projectPath, long submittedAfter) {
+        return Flux.defer(() -> {
+            String key = new File(projectPath).getAbsolutePath();
+            VueBuildTask task = findActiveTask(key);
+            if (task == null) {
+                task = recentTasks.getIfPresent(key);
+                if (task == null || task.getSubmitTime() < submittedAfter) {
+                    return Flux.empty();
+                }
+            }
+            VueBuildTask watched = task;
+            return Flux.<VueBuildEvent>create(sink -> {
+                Consumer<VueBuildEvent> listener = event -> {
+                    sink.next(event);
+                    if (event.isTerminal()) {
+                        sink.complete();
+                    }
+                };
+                sink.onDispose(() -> watched.removeEventListener(listener));
+                watched.addEventListener(listener);
+            });
+        });
+    }
+
+    /**
+     * 查询项目构建状态
+     */
+    public BuildStatus getBuildStatus(String projectPath) {
+        String key = new File(projectPath).getAbsolutePath();
+        synchronized (lock) {
+            if (runningTasks.containsKey(key)) {
+                return BuildStatus.RUNNING;
+            }
+            return queuedTasks.containsKey(key) ? BuildStatus.QUEUED : BuildStatus.IDLE;
+        }
+    }
+
+    /**
+     * 查找项目当前（执行中 > 排队中 > 最近结束）的构建任务
+     *
+     * @param projectPath 项目路径
+     * @return 构建任务，没有时返回 null
+     */
+    public VueBuildTask findTask(String projectPath) {
+        String key = new File(projectPath).getAbsolutePath();
+        VueBuildTask task = findActiveTask(key);
+        return task != null ? task : recentTasks.getIfPresent(key);
+    }
+
+    /**
+     * 查找排队或执行中的任务（执行中的任务被取代时返回取代它的新任务）
+     */
+    private VueBuildTask findActiveTask(String key) {
+        synchronized (lock) {
+            VueBuildTask queued = queuedTasks.get(key);
+            return queued != null ? queued : runningTasks.get(key);
+        }
+    }
+
+    /**
+     * 获取构建统计
+     */
+    public BuildStatistics getStatistics() {
+        int running;
+        int queued;
+        synchronized (lock) {
+            running = runningTasks.size();
+            queued = queuedTasks.size();
+        }
+        long finished = succeededCount.get() + failedCount.get();
+        return new BuildStatistics(buildSlots, running, queued, submittedCount.get(), mergedCount.get(),
+                supersededCount.get(), rejectedCount.get(), succeededCount.get(), failedCount.get(),
+                finished == 0 ? 0 : totalWaitMillis.sum() / finished,
+                finished == 0 ? 0 : totalBuildMillis.sum() / finished);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (lock) {
+            queuedTasks.values().forEach(task -> {
+                task.publish(VueBuildEventTypeEnum.FAILED, "服务正在关闭");
+                task.getFuture().complete(false);
+            });
+            queuedTasks.clear();
+            runningTasks.values().forEach(VueBuildTask::cancel);
+        }
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * 有空闲槽位时按 FIFO 启动排队任务（同一项目同时只有一个任务在执行）
+     */
+    private void dispatch() {
+        List<VueBuildTask> toStart = new ArrayList<>();
+        synchronized (lock) {
+            Iterator<VueBuildTask> iterator = queuedTasks.values().iterator();
+            while (runningTasks.size() < buildSlots && iterator.hasNext()) {
+                VueBuildTask task = iterator.next();
+                if (runningTasks.containsKey(task.getProjectPath())) {
+                    // 等待被取代的旧构建退出
+                    continue;
+                }
+                iterator.remove();
+                runningTasks.put(task.getProjectPath(), task);
+                toStart.add(task);
+            }
+        }
+        toStart.forEach(task -> buildExecutor.execute(() -> runTask(task)));
+    }
+
+    private void runTask(VueBuildTask task) {
+        task.markStarted();
+        totalWaitMillis.add(task.getStartTime() - task.getSubmitTime());
+        boolean success = false;
+        try {
+            success = vueProjectBuilder.buildProject(task.getProjectPath(), task);
+        } catch (Exception e) {
+            log.error("构建Vue项目异常，项目路径：{}", task.getProjectPath(), e);
+        } finally {
+            synchronized (lock) {
+                runningTasks.remove(task.getProjectPath(), task);
+            }
+            recentTasks.put(task.getProjectPath(), task);
+            totalBuildMillis.add(System.currentTimeMillis() - task.getStartTime());
+            VueBuildTask successor = task.getSupersededBy();
+            if (task.isCancelled() && successor != null) {
+                // 被取代的任务以新任务的结果完成
+                successor.getFuture().whenComplete((result, error) ->
+                        task.getFuture().complete(error == null && Boolean.TRUE.equals(result)));
+            } else {
+                (success ? succeededCount : failedCount).incrementAndGet();
+                if (success) {
+                    task.publish(VueBuildEventTypeEnum.DONE, null);
+                } else {
+                    task.publish(VueBuildEventTypeEnum.FAILED, task.getLog().tailText(FAILED_MESSAGE_LINES));
+                }
+                task.getFuture().complete(success);
+            }
+            dispatch();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.zw.zwaicodemother.core.builder;
+
+import com.zw.zwaicodemother.model.enums.VueBuildEventTypeEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Vue 项目构建任务
+ * 持有正在执行的构建进程，取消时强制结束进程及其子进程；
+ * 同时记录构建日志（环形缓冲区）和各阶段耗时
+ */
+public class VueBuildTask {
+
+    /**
+     * 每个任务保留的日志行数
+     */
+    private static final int LOG_CAPACITY = 1000;
+
+    private final String projectPath;
+
+    private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+    private final long submitTime = System.currentTimeMillis();
+
+    private volatile long startTime;
+
+    private volatile boolean cancelled;
+
+    /**
+     * 取代本任务的新任务（同一项目有新的构建请求时产生）
+     */
+    private volatile VueBuildTask supersededBy;
+
+    private volatile Process process;
+
+    private final BuildLogBuffer log = new BuildLogBuffer(LOG_CAPACITY);
+
+    private final VueBuildTimings timings = new VueBuildTimings();
+
+    private final List<Consumer<VueBuildEvent>> eventListeners = new ArrayList<>();
+
+    /**
+     * 最近一次发布的事件，新的监听者注册时立即收到
+     */
+    private VueBuildEvent lastEvent;
+
+    public VueBuildTask(String projectPath) {
+        this.projectPath = projectPath;
+    }
+
+    public String getProjectPath() {
+        return projectPath;
+    }
+
+    public CompletableFuture<Boolean> getFuture() {
+        return future;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public VueBuildTask getSupersededBy() {
+        return supersededBy;
+    }
+
+    public BuildLogBuffer getLog() {
+        return log;
+    }
+
+    public VueBuildTimings getTimings() {
+        return timings;
+    }
+
+    public synchronized VueBuildEvent getLastEvent() {
+        return lastEvent;
+    }
+
+    /**
+     * 注册进度监听，立即回放最近一次事件
+     */
+    public synchronized void addEventListener(Consumer<VueBuildEvent> listener) {
+        eventListeners.add(listener);
+        if (lastEvent != null) {
+            listener.accept(lastEvent);
+        }
+    }
+
+    public synchronized void removeEventListener(Consumer<VueBuildEvent> listener) {
+        eventListeners.remove(listener);
+    }
+
+    /**
+     * 发布进度事件（结束事件会携带阶段耗时）
+     */
+    void publish(VueBuildEventTypeEnum type, String message) {
+        publish(new VueBuildEvent(type.getValue(), System.currentTimeMillis() - submitTime, message,
+                type.isTerminal() ? timings : null));
+    }
+
+    private synchronized void publish(VueBuildEvent event) {
+        lastEvent = event;
+        // 复制一份，监听者可能在回调中移除自己
+        for (Consumer<VueBuildEvent> listener : new ArrayList<>(eventListeners)) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException ignored) {
+                // 监听方异常不影响构建
+            }
+        }
+    }
+
+    void markStarted() {
+        startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录当前执行的进程，任务已取消时立即结束
+     */
+    void attachProcess(Process process) {
+        this.process = process;
+        if (cancelled) {
+            destroy(process);
+        }
+    }
+
+    /**
+     * 被新任务取代：取消本任务
+     */
+    void supersede(VueBuildTask newTask) {
+        supersededBy = newTask;
+        cancel();
+        // 旧任务的监听者改为跟随新任务的进度
+        newTask.addEventListener(this::publish);
+    }
+
+    /**
+     * 取消任务，结束正在执行的进程
+     */
+    void cancel() {
+        cancelled = true;
+        Process current = process;
+        if (current != null) {
+            destroy(current);
+        }
+    }
+
+    /**
+     * 结束进程及其子进程（cnpm 会派生 node 子进程）
+     */
+    static void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
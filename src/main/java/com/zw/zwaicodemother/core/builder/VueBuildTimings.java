@@ -0,0 +1,121 @@
+package com.zw.zwaicodemother.core.builder;
+
+import lombok.Data;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 单次 Vue 项目构建各阶段耗时
+ * 进程耗时由构建器计时，工具自身报告的耗时和规模从命令输出中解析
+ * 字段由构建线程和 stdout/stderr 读取线程写入、由查询构建状态的线程读取，均声明为 volatile；
+ * 两个读取线程可能同时解析，解析方法加锁保证成对字段一致
+ */
+@Data
+public class VueBuildTimings {
+
+    /**
+     * cnpm: "All packages installed (123 packages installed from npm registry, used 8s(network 7s), ..."
+     */
+    private static final Pattern CNPM_INSTALLED_PATTERN =
+            Pattern.compile("All packages installed \\((\\d+) packages? installed.*?used ([\\d.]+)(ms|s|m)\\b");
+
+    /**
+     * npm: "added 123 packages, and audited 124 packages in 8s"
+     */
+    private static final Pattern NPM_ADDED_PATTERN =
+            Pattern.compile("added (\\d+) packages?.*? in ([\\d.]+)(ms|s|m)\\b");
+
+    /**
+     * vite: "✓ 42 modules transformed."
+     */
+    private static final Pattern VITE_MODULES_PATTERN = Pattern.compile("(\\d+) modules transformed");
+
+    /**
+     * vite: "✓ built in 3.21s"
+     */
+    private static final Pattern VITE_BUILT_PATTERN = Pattern.compile("built in ([\\d.]+)(ms|s|m)\\b");
+
+    /**
+     * 依赖安装方式：cached（依赖未变化）/ shared（复用共享仓库）/ installed（执行安装）
+     */
+    private volatile String installMode;
+
+    /**
+     * 依赖准备耗时（含摘要计算和链接）
+     */
+    private volatile long installMillis;
+
+    /**
+     * 安装的依赖包数量（从输出解析，未解析到为 null）
+     */
+    private volatile Integer packagesInstalled;
+
+    /**
+     * 包管理器自报的安装耗时
+     */
+    private volatile Long reportedInstallMillis;
+
+    /**
+     * 是否因源码未变化跳过打包
+     */
+    private volatile boolean buildSkipped;
+
+    /**
+     * 打包阶段耗时（含源码摘要计算）
+     */
+    private volatile long buildMillis;
+
+    /**
+     * vite 转换的模块数
+     */
+    private volatile Integer modulesTransformed;
+
+    /**
+     * vite 自报的打包耗时
+     */
+    private volatile Long reportedBuildMillis;
+
+    /**
+     * 解析一行安装输出
+     */
+    public synchronized void parseInstallLine(String line) {
+        Matcher matcher = CNPM_INSTALLED_PATTERN.matcher(line);
+        if (!matcher.find()) {
+            matcher = NPM_ADDED_PATTERN.matcher(line);
+            if (!matcher.find()) {
+                return;
+            }
+        }
+        packagesInstalled = Integer.parseInt(matcher.group(1));
+        reportedInstallMillis = toMillis(matcher.group(2), matcher.group(3));
+    }
+
+    /**
+     * 解析一行打包输出
+     */
+    public synchronized void parseBuildLine(String line) {
+        Matcher matcher = VITE_MODULES_PATTERN.matcher(line);
+        if (matcher.find()) {
+            modulesTransformed = Integer.parseInt(matcher.group(1));
+            return;
+        }
+        matcher = VITE_BUILT_PATTERN.matcher(line);
+        if (matcher.find()) {
+            reportedBuildMillis = toMillis(matcher.group(1), matcher.group(2));
+        }
+    }
+
+    public long getTotalMillis() {
+        return installMillis + buildMillis;
+    }
+
+    private static long toMillis(String value, String unit) {
+        double number = Double.parseDouble(value);
+        return switch (unit) {
+            case "ms" -> Math.round(number);
+            case "m" -> Math.round(number * 60_000);
+            default -> Math.round(number * 1000);
+        };
+    }
+}
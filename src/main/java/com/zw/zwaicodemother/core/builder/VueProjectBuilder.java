@@ -1,39 +1,83 @@
 package com.zw.zwaicodemother.core.builder;
 
 import cn.hutool.core.util.RuntimeUtil;
+import com.zw.zwaicodemother.model.enums.VueBuildEventTypeEnum;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Component
 public class VueProjectBuilder {
+
+    @Resource
+    private VueBuildCache vueBuildCache;
+
+    @Resource
+    private NodeModulesStore nodeModulesStore;
+
+    private static final String STREAM_STDOUT = "stdout";
+    private static final String STREAM_STDERR = "stderr";
+    private static final String STREAM_SYSTEM = "system";
+
     /**
-     * 异步构建项目（不阻塞主流程）
-     *
-     * @param projectPath 项目路径
+     * 终端颜色等控制符
      */
-    public void buildProjectAsync(String projectPath) {
-        Thread.ofVirtual().name("vue-project-builder"+System.currentTimeMillis()).start(() -> {
-            try{
-                buildProject(projectPath);
-            }catch (Exception e){
-                log.error("异步构建Vue项目，项目路径：{}，异常信息：{}", projectPath, e.getMessage());
-            }
-        });
+    private static final Pattern ANSI_ESCAPE_PATTERN = Pattern.compile("\u001B\\[[0-9;?]*[ -/]*[@-~]");
+
+    /**
+     * 命令失败时打印的最近输出行数
+     */
+    private static final int ERROR_TAIL_LINES = 50;
+
+    /**
+     * 进程退出后等待输出读取完毕的时间（秒）
+     */
+    private static final int DRAIN_JOIN_SECONDS = 5;
+
+    /**
+     * 项目构建锁分段数
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 分段锁：按项目绝对路径选锁，同一项目的构建串行执行，锁数量固定，不随项目数增长
+     */
+    private final Object[] projectLocks = new Object[LOCK_STRIPES];
+
+    public VueProjectBuilder() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            projectLocks[i] = new Object();
+        }
     }
+
     /*
-    * 构建Vue项目
+    * 构建Vue项目（直接在当前线程执行，不经过调度，业务中请使用 VueBuildScheduler）
     * @param projectPath 项目路径
     * @return 构建结果
     * */
     public  boolean buildProject(String projectPath){
+        return buildProject(projectPath, new VueBuildTask(projectPath));
+    }
+
+    /*
+    * 构建Vue项目
+    * @param projectPath 项目路径
+    * @param task        构建任务（用于取消）
+    * @return 构建结果
+    * */
+    public  boolean buildProject(String projectPath, VueBuildTask task){
         File projectDir = new File(projectPath);
         if (!projectDir.exists()||!projectDir.isDirectory()){
             log.error("构建Vue项目，项目路径：{}，异常信息：{}", projectPath, "项目路径不存在");
@@ -45,99 +89,195 @@ public class VueProjectBuilder {
             log.error("项目目录中没有 package.json 文件：{}", packageJsonFile);
             return false;
         }
+        // 同一项目的构建串行执行，后到的请求等待后可直接命中缓存
+        synchronized (projectLocks[Math.floorMod(projectDir.getAbsolutePath().hashCode(), LOCK_STRIPES)]) {
+            return doBuildProject(projectDir, task);
+        }
+    }
+
+    private boolean doBuildProject(File projectDir, VueBuildTask task) {
+        String projectPath = projectDir.getAbsolutePath();
         log.info("开始构建Vue项目：{}",projectPath);
-        //执行npm install命令
-        if (!executeNpmInstall(projectDir)){
-            log.error("npm install 命令执行失败:{}", projectPath);
+        if (task.isCancelled()) {
+            log.info("构建已取消：{}", projectPath);
             return false;
         }
-        //执行npm run build命令生成dist目录
-        if (!executeNpmBuild(projectDir)){
+        VueBuildTimings timings = task.getTimings();
+        BuildLogBuffer buildLog = task.getLog();
+        //执行npm install命令（package.json 和锁文件未变化时跳过）
+        task.publish(VueBuildEventTypeEnum.INSTALLING, null);
+        long phaseStart = System.currentTimeMillis();
+        String installDigest = vueBuildCache.computeInstallDigest(projectDir);
+        if (vueBuildCache.isInstallUpToDate(projectDir, installDigest)) {
+            log.info("依赖未变化，跳过 cnpm install：{}", projectPath);
+            timings.setInstallMode("cached");
+            buildLog.append(STREAM_SYSTEM, "依赖未变化，跳过安装");
+        } else if (nodeModulesStore.linkIfPresent(projectDir, installDigest)) {
+            log.info("共享仓库中已有相同依赖，跳过 cnpm install：{}", projectPath);
+            timings.setInstallMode("shared");
+            buildLog.append(STREAM_SYSTEM, "复用共享依赖，跳过安装");
+        } else {
+            timings.setInstallMode("installed");
+            // 不能在共享目录中安装
+            nodeModulesStore.detach(projectDir);
+            boolean installed = executeNpmInstall(projectDir, task);
+            timings.setInstallMillis(System.currentTimeMillis() - phaseStart);
+            if (!installed){
+                log.error("npm install 命令执行失败:{}", projectPath);
+                return false;
+            }
+            // install 可能会更新锁文件，按安装后的内容记录
+            String installedDigest = vueBuildCache.computeInstallDigest(projectDir);
+            vueBuildCache.markInstalled(projectDir, installedDigest);
+            nodeModulesStore.publish(projectDir, installedDigest);
+        }
+        timings.setInstallMillis(System.currentTimeMillis() - phaseStart);
+        //执行npm run build命令生成dist目录（源码未变化且 dist 存在时跳过）
+        task.publish(VueBuildEventTypeEnum.BUILDING, null);
+        phaseStart = System.currentTimeMillis();
+        String sourceDigest = vueBuildCache.computeSourceDigest(projectDir);
+        if (vueBuildCache.isBuildUpToDate(projectDir, sourceDigest)) {
+            log.info("源码未变化，跳过 cnpm run build：{}", projectPath);
+            timings.setBuildSkipped(true);
+            timings.setBuildMillis(System.currentTimeMillis() - phaseStart);
+            buildLog.append(STREAM_SYSTEM, "源码未变化，跳过打包");
+            log.info("Vue项目构建完成：{}，耗时：{}", projectPath, timings);
+            return true;
+        }
+        vueBuildCache.invalidateBuild(projectDir);
+        if (task.isCancelled()) {
+            log.info("构建已取消：{}", projectPath);
+            return false;
+        }
+        boolean built = executeNpmBuild(projectDir, task);
+        timings.setBuildMillis(System.currentTimeMillis() - phaseStart);
+        if (!built){
             log.error("npm run build 命令执行失败:{}", projectPath);
             return false;
         }
+        vueBuildCache.markBuilt(projectDir, sourceDigest);
+        log.info("Vue项目构建完成：{}，耗时：{}", projectPath, timings);
         return true;
     }
     /**
      * 执行 npm install 命令
      */
-    private boolean executeNpmInstall(File projectDir) {
+    private boolean executeNpmInstall(File projectDir, VueBuildTask task) {
         log.info("执行 cnpm install...");
         String command = String.format("%s install", buildCommand("cnpm"));
-        return executeCommand(projectDir, command, 300); // 5分钟超时
+        return executeCommand(projectDir, command, 300, task, task.getTimings()::parseInstallLine); // 5分钟超时
     }
     /**
      * 执行 npm run build 命令
      */
-    private boolean executeNpmBuild(File projectDir) {
+    private boolean executeNpmBuild(File projectDir, VueBuildTask task) {
         log.info("执行 cnpm run build...");
         String command = String.format("%s run build", buildCommand("cnpm"));
-        return executeCommand(projectDir, command, 180); // 3分钟超时
+        return executeCommand(projectDir, command, 180, task, task.getTimings()::parseBuildLine); // 3分钟超时
     }
     /**
      * 执行命令
+     * stdout 和 stderr 由两个虚拟线程持续读取写入任务日志，避免输出写满管道缓冲区导致子进程阻塞
      *
      * @param workingDir     工作目录
      * @param command        命令字符串
      * @param timeoutSeconds 超时时间（秒）
+     * @param task           构建任务，取消时结束进程，输出写入任务日志
+     * @param lineParser     逐行解析输出（提取耗时等信息）
      * @return 是否执行成功
      */
-    private boolean executeCommand(File workingDir,String command,int  timeoutSeconds){
+    private boolean executeCommand(File workingDir, String command, int timeoutSeconds, VueBuildTask task,
+                                   Consumer<String> lineParser){
         Process process = null;
-        BufferedReader errorReader = null;
+        Thread stdoutDrainer = null;
+        Thread stderrDrainer = null;
+        BuildLogBuffer buildLog = task.getLog();
         try {
             log.info("在目录{}执行命令：{}",workingDir.getAbsolutePath(),command);
+            buildLog.append(STREAM_SYSTEM, "$ " + command);
             process= RuntimeUtil.exec(
                     null,workingDir,command.split("\\s+")//命令分割为数组
             );
-            // 捕获错误流（关键：获取npm等命令的错误输出）
-            errorReader = new BufferedReader(
-                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8)
-            );
+            task.attachProcess(process);
+            stdoutDrainer = startDrainer(process.getInputStream(), STREAM_STDOUT, buildLog, lineParser);
+            stderrDrainer = startDrainer(process.getErrorStream(), STREAM_STDERR, buildLog, lineParser);
             //等待进程完成时，设置超时
             boolean finished=process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
             if (!finished){
                 log.error("命令执行超时：{},强制终止进程", timeoutSeconds);
-                process.destroyForcibly();
+                buildLog.append(STREAM_SYSTEM, "命令执行超时（" + timeoutSeconds + " 秒），已终止");
+                VueBuildTask.destroy(process);
                 return false;
             }
-            // 读取错误流内容（无论退出码是否为0，都可能有错误输出）
-            StringBuilder errorMsg = new StringBuilder();
-            String line;
-            while ((line = errorReader.readLine()) != null) {
-                errorMsg.append(line).append("\n");
-            }
-            // 检查错误输出并记录
-            if (!errorMsg.isEmpty()) {
-                // 区分警告和错误（根据实际场景调整）
-                log.warn("命令执行有输出信息:\n{}", errorMsg.toString().trim());
-            }
+            // 等待输出读取完毕，保证日志完整
+            joinDrainer(stdoutDrainer);
+            joinDrainer(stderrDrainer);
             // 检查退出码
             int exitCode = process.exitValue();
+            if (task.isCancelled()) {
+                log.info("命令已取消：{}", command);
+                buildLog.append(STREAM_SYSTEM, "构建已取消");
+                return false;
+            }
             if (exitCode == 0) {
                 log.info("命令执行成功：{}", command);
                 return true;
             }else {
-                log.error("命令执行失败，退出码: {}\n错误详情:\n{}",
+                log.error("命令执行失败，退出码: {}\n最近输出:\n{}",
                         exitCode,
-                        errorMsg.toString().trim());
+                        buildLog.tailText(ERROR_TAIL_LINES));
+                buildLog.append(STREAM_SYSTEM, "命令执行失败，退出码: " + exitCode);
                 return false;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("执行命令被中断: {}", command);
+            return false;
         } catch (Exception  e) {
             log.error("执行命令失败: {}, 错误信息: {}", command, e.getMessage());
+            buildLog.append(STREAM_SYSTEM, "执行命令失败: " + e.getMessage());
             return false;
         }  finally {
-            // 关闭资源
-            if (errorReader != null) {
-                try {
-                    errorReader.close();
-                } catch (Exception e) {
-                    log.error("关闭错误流失败", e);
-                }
-            }
             if (process != null) {
                 process.destroy(); // 确保进程被销毁
             }
+            // 进程结束后管道关闭，读取线程随之退出；这里兜底中断
+            if (stdoutDrainer != null) {
+                stdoutDrainer.interrupt();
+            }
+            if (stderrDrainer != null) {
+                stderrDrainer.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 启动输出读取线程：逐行去除颜色控制符后写入日志并交给解析器
+     */
+    private Thread startDrainer(InputStream inputStream, String stream, BuildLogBuffer buildLog,
+                                Consumer<String> lineParser) {
+        return Thread.ofVirtual().name("vue-build-" + stream).start(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = ANSI_ESCAPE_PATTERN.matcher(line).replaceAll("").stripTrailing();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    buildLog.append(stream, line);
+                    lineParser.accept(line);
+                }
+            } catch (IOException e) {
+                // 进程被强制结束时管道会异常关闭，忽略
+                log.debug("读取命令输出结束: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void joinDrainer(Thread drainer) throws InterruptedException {
+        if (!drainer.join(Duration.ofSeconds(DRAIN_JOIN_SECONDS))) {
+            // 子进程的子进程仍持有管道时不会读到 EOF，不再等待
+            log.warn("命令输出读取未在 {} 秒内结束", DRAIN_JOIN_SECONDS);
         }
     }
 
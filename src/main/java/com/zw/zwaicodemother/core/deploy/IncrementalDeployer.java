@@ -0,0 +1,235 @@
+package com.zw.zwaicodemother.core.deploy;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.zw.zwaicodemother.constant.AppConstant;
+import com.zw.zwaicodemother.exception.BusinessException;
+import com.zw.zwaicodemother.exception.ErrorCode;
+import com.zw.zwaicodemother.utils.FileDigestUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 增量部署器
+ * 部署目录结构：
+ * - {部署根目录}/{deployKey}：指向当前版本的符号链接，对外提供访问
+ * - {版本根目录}/{deployKey}/{releaseId}：每次部署的完整版本目录
+ * - {版本根目录}/{deployKey}/{releaseId}.manifest：该版本的文件摘要清单
+ * 版本根目录位于静态资源目录之外，历史版本和清单不能通过部署地址直接访问
+ * 部署流程：
+ * 1. 计算源目录的文件摘要清单，与当前版本清单一致时直接跳过
+ * 2. 新建版本目录，未变化的文件从当前版本硬链接，变化的文件从源目录复制
+ * 3. 原子替换符号链接，访问方不会看到复制了一半的站点
+ * 4. 保留上一个版本，删除更早的版本
+ * 不支持符号链接的文件系统退化为目录重命名替换
+ */
+@Component
+@Slf4j
+public class IncrementalDeployer {
+
+    /**
+     * 旧版本把版本目录放在部署根目录下，迁移后清理
+     */
+    private static final String LEGACY_RELEASES_DIR_NAME = ".releases";
+
+    private static final String MANIFEST_SUFFIX = ".manifest";
+
+    /**
+     * 保留的版本数量（当前版本 + 上一个版本）
+     */
+    private static final int KEEP_RELEASES = 2;
+
+    /**
+     * 部署锁分段数
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 分段锁：同一个 deployKey 的部署串行执行，锁数量固定，不随 deployKey 增长
+     */
+    private final Object[] deployLocks = new Object[LOCK_STRIPES];
+
+    public IncrementalDeployer() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            deployLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 部署结果
+     *
+     * @param changed      是否有变化（false 表示与当前版本完全一致，未做任何操作）
+     * @param copiedFiles  从源目录复制的文件数
+     * @param linkedFiles  从当前版本硬链接的文件数
+     * @param removedFiles 本次部署删除的文件数
+     * @param contentDigest 部署内容摘要
+     */
+    public record DeployResult(boolean changed, int copiedFiles, int linkedFiles, int removedFiles,
+                               String contentDigest) {
+    }
+
+    /**
+     * 增量部署
+     *
+     * @param sourceDir 源目录
+     * @param deployKey 部署标识
+     * @return 部署结果
+     */
+    public DeployResult deploy(File sourceDir, String deployKey) {
+        synchronized (deployLocks[Math.floorMod(deployKey.hashCode(), LOCK_STRIPES)]) {
+            try {
+                return doDeploy(sourceDir, deployKey);
+            } catch (IOException e) {
+                log.error("增量部署失败，deployKey: {}", deployKey, e);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "部署失败：" + e.getMessage());
+            }
+        }
+    }
+
+    private DeployResult doDeploy(File sourceDir, String deployKey) throws IOException {
+        Path deployRoot = Path.of(AppConstant.CODE_DEPLOY_ROOT_DIR);
+        Path livePath = deployRoot.resolve(deployKey);
+        Path releasesDir = Path.of(AppConstant.CODE_DEPLOY_RELEASES_DIR).resolve(deployKey);
+        Files.createDirectories(releasesDir);
+
+        Map<String, String> sourceManifest = FileDigestUtils.digestFiles(sourceDir);
+        String contentDigest = FileDigestUtils.digestTree(sourceManifest);
+        // 当前版本目录和清单（旧的普通目录部署没有清单，全部重新复制）
+        Path currentRelease = Files.isSymbolicLink(livePath) ? livePath.toRealPath() : null;
+        Map<String, String> currentManifest = currentRelease == null ? Map.of() : readManifest(currentRelease);
+        if (currentRelease != null && sourceManifest.equals(currentManifest)) {
+            log.info("部署内容未变化，跳过部署，deployKey: {}", deployKey);
+            return new DeployResult(false, 0, 0, 0, contentDigest);
+        }
+
+        // 1.在新版本目录中组装站点
+        Path newRelease = releasesDir.resolve(System.currentTimeMillis() + "_" + IdUtil.fastSimpleUUID().substring(0, 8));
+        Path sourceRoot = sourceDir.toPath();
+        int copied = 0;
+        int linked = 0;
+        for (Map.Entry<String, String> entry : sourceManifest.entrySet()) {
+            String relativePath = entry.getKey();
+            Path target = newRelease.resolve(relativePath);
+            Files.createDirectories(target.getParent());
+            if (entry.getValue().equals(currentManifest.get(relativePath))
+                    && tryLink(target, currentRelease.resolve(relativePath))) {
+                linked++;
+            } else {
+                Files.copy(sourceRoot.resolve(relativePath), target, StandardCopyOption.COPY_ATTRIBUTES);
+                copied++;
+            }
+        }
+        int removed = (int) currentManifest.keySet().stream().filter(path -> !sourceManifest.containsKey(path)).count();
+        writeManifest(newRelease, sourceManifest);
+
+        // 2.切换到新版本
+        switchRelease(livePath, newRelease);
+        log.info("增量部署完成，deployKey: {}，复制: {}，硬链接: {}，删除: {}", deployKey, copied, linked, removed);
+
+        // 3.清理旧版本（包括迁移前放在部署根目录下的版本）
+        cleanupOldReleases(releasesDir, newRelease);
+        FileUtil.del(deployRoot.resolve(LEGACY_RELEASES_DIR_NAME).resolve(deployKey).toFile());
+        return new DeployResult(true, copied, linked, removed, contentDigest);
+    }
+
+    /**
+     * 原子切换当前版本：先建临时符号链接，再重命名覆盖
+     */
+    private void switchRelease(Path livePath, Path newRelease) throws IOException {
+        Path tempLink = livePath.resolveSibling("." + livePath.getFileName() + ".tmp-" + IdUtil.fastSimpleUUID().substring(0, 8));
+        try {
+            Files.createSymbolicLink(tempLink, livePath.getParent().relativize(newRelease));
+        } catch (UnsupportedOperationException | IOException e) {
+            log.warn("无法创建符号链接，退化为目录替换: {}", e.getMessage());
+            replaceDirectory(livePath, newRelease);
+            return;
+        }
+        if (Files.isDirectory(livePath, LinkOption.NOFOLLOW_LINKS)) {
+            // 从旧的普通目录部署迁移：普通目录不能被重命名覆盖，先移走
+            Path legacyDir = livePath.resolveSibling("." + livePath.getFileName() + ".legacy-" + IdUtil.fastSimpleUUID().substring(0, 8));
+            Files.move(livePath, legacyDir, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempLink, livePath, StandardCopyOption.ATOMIC_MOVE);
+            FileUtil.del(legacyDir.toFile());
+            return;
+        }
+        Files.move(tempLink, livePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 不支持符号链接时的退化方案：复制新版本到临时目录后，两次重命名替换
+     */
+    private void replaceDirectory(Path livePath, Path newRelease) throws IOException {
+        Path stagingDir = livePath.resolveSibling("." + livePath.getFileName() + ".staging-" + IdUtil.fastSimpleUUID().substring(0, 8));
+        FileUtil.copyContent(newRelease.toFile(), stagingDir.toFile(), true);
+        Path oldDir = livePath.resolveSibling("." + livePath.getFileName() + ".old-" + IdUtil.fastSimpleUUID().substring(0, 8));
+        if (Files.exists(livePath)) {
+            Files.move(livePath, oldDir, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(stagingDir, livePath, StandardCopyOption.ATOMIC_MOVE);
+        FileUtil.del(oldDir.toFile());
+    }
+
+    /**
+     * 硬链接未变化的文件，失败时（如跨文件系统）返回 false 由调用方复制
+     */
+    private boolean tryLink(Path target, Path existing) {
+        try {
+            Files.createLink(target, existing);
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 删除除当前版本和上一个版本之外的旧版本
+     */
+    private void cleanupOldReleases(Path releasesDir, Path currentRelease) {
+        File[] releases = releasesDir.toFile().listFiles(File::isDirectory);
+        if (releases == null || releases.length <= KEEP_RELEASES) {
+            return;
+        }
+        // 版本目录名以时间戳开头，按名称倒序即为从新到旧
+        List<File> sorted = Arrays.stream(releases)
+                .sorted(Comparator.comparing(File::getName).reversed())
+                .toList();
+        for (File release : sorted.subList(KEEP_RELEASES, sorted.size())) {
+            if (Objects.equals(release.toPath(), currentRelease)) {
+                continue;
+            }
+            FileUtil.del(release);
+            FileUtil.del(new File(release.getPath() + MANIFEST_SUFFIX));
+        }
+    }
+
+    private Map<String, String> readManifest(Path release) {
+        File manifestFile = new File(release + MANIFEST_SUFFIX);
+        if (!manifestFile.exists()) {
+            return Map.of();
+        }
+        JSONObject jsonObject = JSONUtil.parseObj(FileUtil.readString(manifestFile, StandardCharsets.UTF_8));
+        Map<String, String> manifest = new HashMap<>();
+        jsonObject.forEach((path, digest) -> manifest.put(path, String.valueOf(digest)));
+        return manifest;
+    }
+
+    private void writeManifest(Path release, Map<String, String> manifest) {
+        FileUtil.writeString(JSONUtil.toJsonStr(manifest), new File(release + MANIFEST_SUFFIX), StandardCharsets.UTF_8);
+    }
+}
@@ -9,7 +9,7 @@ import com.zw.zwaicodemother.ai.model.message.*;
 import com.zw.zwaicodemother.ai.tool.BaseTool;
 import com.zw.zwaicodemother.ai.tool.ToolManager;
 import com.zw.zwaicodemother.constant.AppConstant;
-import com.zw.zwaicodemother.core.builder.VueProjectBuilder;
+import com.zw.zwaicodemother.core.builder.VueBuildScheduler;
 import com.zw.zwaicodemother.model.entity.User;
 import com.zw.zwaicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.zw.zwaicodemother.service.ChatHistoryService;
@@ -31,13 +31,13 @@ import java.util.Set;
 public class JsonMessageStreamHandler {
 
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildScheduler vueBuildScheduler;
 
     @Resource
     private ToolManager toolManager;
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 按消息类型重组为完整的响应格式
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -45,49 +45,43 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         //收集数据用于生成后端记忆格式
         StringBuilder chatHistoryStringBuilder = new StringBuilder();
         //用于跟踪已经见过的工具ID，判断是否时第一次调用
         Set<String> seenToolIds = new HashSet<>();
-        return originFlux.map(chunk->{
-            //解析每个JSON消息块
-            String result = handleJsonMessageChunk(chunk,chatHistoryStringBuilder,seenToolIds);
+        return originFlux.map(message->{
+            //处理每个消息
+            String result = handleStreamMessage(message,chatHistoryStringBuilder,seenToolIds);
             return result == null ? "" : result; // 避免返回null
         }).filter(StrUtil::isNotBlank)//过滤空字符
                 .doOnComplete(()->{
                     //流式响应完成后，添加 AI 消息到对话历史
                     String aiRespomse=chatHistoryStringBuilder.toString();
                     chatHistoryService.addChatMessage(appId,aiRespomse, ChatHistoryMessageTypeEnum.AI.getValue(),loginUser.getId());
-                    //异步构建Vue项目
+                    //异步构建Vue项目（提交到构建调度器排队执行）
                     String projectPath= AppConstant.CODE_OUTPUT_ROOT_DIR+"/vue_project_"+appId;
-                    vueProjectBuilder.buildProjectAsync(projectPath);
+                    vueBuildScheduler.submit(projectPath);
                 }).doOnError(error->{
                     String errorMeassage="AI回复失败: "+error.getMessage();
                     chatHistoryService.addChatMessage(appId,errorMeassage, ChatHistoryMessageTypeEnum.AI.getValue(),loginUser.getId());
                 });
     }
     /**
-     * 解析并收集 TokenStream 数据
+     * 处理并收集 TokenStream 消息（消息在进程内以对象传递，无需反序列化）
      */
-    private String handleJsonMessageChunk(String chunk,
-                                          StringBuilder chatHistoryStringBuilder,Set<String> seenToolIds){
-        // 解析 JSON
-        StreamMessage streamMessage= JSONUtil.toBean(chunk,StreamMessage.class);
-        StreamMessageTypeEnum typeEnum =StreamMessageTypeEnum
-                .getEnumByValue(streamMessage.getType());
-        switch (typeEnum){
-            case AI_RESPONSE->{
-                AiResponseMessage aiResponseMessage = JSONUtil.toBean(chunk,AiResponseMessage.class);
+    private String handleStreamMessage(StreamMessage streamMessage,
+                                       StringBuilder chatHistoryStringBuilder,Set<String> seenToolIds){
+        return switch (streamMessage){
+            case AiResponseMessage aiResponseMessage->{
                 String data = aiResponseMessage.getData();
                 //直接拼接响应
                 chatHistoryStringBuilder.append(data);
-                return data;
+                yield data;
             }
-            case TOOL_REQUEST-> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+            case ToolRequestMessage toolRequestMessage-> {
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
                 //判断是否是第一次调用
@@ -97,14 +91,13 @@ public class JsonMessageStreamHandler {
                     //根据工具名称获取工具实例
                     BaseTool tool=toolManager.getTool(toolName);
                     //返回格式化的工具调用信息
-                    return tool.generateToolRequestResponse();
-                } else {
-                    //不是第一次调用，只返回工具ID
-                    return null;
+                    yield tool.generateToolRequestResponse();
                 }
+                //不是第一次调用，只返回工具ID
+                yield null;
             }
-            case TOOL_EXECUTED-> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+            case ToolExecutedMessage toolExecutedMessage-> {
+                //工具参数是模型输出的 JSON 字符串，每次工具执行解析一次
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
                 // 根据工具名称获取工具实例
                 String toolName = toolExecutedMessage.getName();
@@ -113,12 +106,8 @@ public class JsonMessageStreamHandler {
                 // 输出前端和要持久化的内容
                 String output = String.format("\n\n%s\n\n", result);
                 chatHistoryStringBuilder.append(output);
-                return output;
+                yield output;
             }
-            default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return " ";
-            }
-        }
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.zw.zwaicodemother.core.handler;
 
 
+import com.zw.zwaicodemother.ai.model.message.AiResponseMessage;
+import com.zw.zwaicodemother.ai.model.message.StreamMessage;
 import com.zw.zwaicodemother.model.entity.User;
 import com.zw.zwaicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.zw.zwaicodemother.service.ChatHistoryService;
@@ -23,12 +25,14 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                Long appId,
                                User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
-        return originFlux.map(chunk->{
+        return originFlux.map(message->{
+            //这两种模式只有 AI 响应消息
+            String chunk = message instanceof AiResponseMessage aiResponseMessage ? aiResponseMessage.getData() : "";
             //收集AI响应内容
             aiResponseBuilder.append(chunk);
             return chunk;
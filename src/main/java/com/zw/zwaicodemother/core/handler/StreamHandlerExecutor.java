@@ -1,6 +1,7 @@
 package com.zw.zwaicodemother.core.handler;
 
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
+import com.zw.zwaicodemother.ai.model.message.StreamMessage;
 import com.zw.zwaicodemother.model.entity.User;
 import com.zw.zwaicodemother.service.ChatHistoryService;
 import jakarta.annotation.Resource;
@@ -11,8 +12,8 @@ import reactor.core.publisher.Flux;
 /**
  * 流处理器执行器
  * 根据代码生成类型创建合适的流处理器：
- * 1. 传统的 Flux<String> 流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
- * 2. TokenStream 格式的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
+ * 1. 纯文本流（HTML、MULTI_FILE，只有 AI 响应消息） -> SimpleTextStreamHandler
+ * 2. TokenStream 格式的复杂流（VUE_PROJECT，含工具调用消息） -> JsonMessageStreamHandler
  */
 @Slf4j
 @Component
@@ -30,7 +31,7 @@ public class StreamHandlerExecutor {
      * @param codeGenType        代码生成类型
      * @return 处理后的流
      */
-    public Flux<String > doExecute(Flux<String> originFlux, ChatHistoryService chatHistoryService,
+    public Flux<String > doExecute(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService,
                                    long appId, User loginUser, CodeGenTypeEnum codeGenType) {
         return switch (codeGenType){
             case VUE_PROJECT -> //使用注入时的组件实例
@@ -0,0 +1,98 @@
+package com.zw.zwaicodemother.core.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+* 代码块（```lang ... ```）单遍扫描器
+ * 一次线性扫描找出全部代码块及其语言标识，替代按语言分别执行的多次懒惰正则匹配，
+ * 不会因为缺失结尾 ``` 而产生回溯
+* */
+public class CodeFenceScanner {
+
+    private static final String FENCE = "```";
+
+    /**
+     * 代码块
+     *
+     * @param language 语言标识（小写，没有时为空字符串）
+     * @param code     代码内容（已去除首尾空白）
+     */
+    public record CodeBlock(String language, String code) {
+    }
+
+    private CodeFenceScanner() {
+    }
+
+    /**
+     * 扫描全部已闭合的代码块
+     * 规则：``` 之后到行尾为语言标识，代码从下一行开始，到下一个 ``` 为止；空代码块忽略，未闭合的代码块丢弃
+     *
+     * @param content 原始内容
+     * @return 按出现顺序排列的代码块
+     */
+    public static List<CodeBlock> scan(String content) {
+        List<CodeBlock> blocks = new ArrayList<>();
+        if (content == null || content.isEmpty()) {
+            return blocks;
+        }
+        int length = content.length();
+        int position = 0;
+        while (position < length) {
+            int openIndex = content.indexOf(FENCE, position);
+            if (openIndex < 0) {
+                break;
+            }
+            int infoEnd = content.indexOf('\n', openIndex + FENCE.length());
+            if (infoEnd < 0) {
+                break;
+            }
+            int closeIndex = content.indexOf(FENCE, infoEnd + 1);
+            if (closeIndex < 0) {
+                break;
+            }
+            String code = content.substring(infoEnd + 1, closeIndex).trim();
+            if (!code.isEmpty()) {
+                String language = parseLanguage(content.substring(openIndex + FENCE.length(), infoEnd));
+                blocks.add(new CodeBlock(language, code));
+            }
+            // 结束 ``` 所在行的剩余内容忽略
+            int closeLineEnd = content.indexOf('\n', closeIndex + FENCE.length());
+            position = closeLineEnd < 0 ? length : closeLineEnd + 1;
+        }
+        return blocks;
+    }
+
+    /**
+     * 查找第一个指定语言的代码块
+     *
+     * @param blocks    扫描结果
+     * @param languages 可接受的语言标识（小写）
+     * @return 代码内容，没有时返回 null
+     */
+    public static String findFirst(List<CodeBlock> blocks, String... languages) {
+        for (CodeBlock block : blocks) {
+            for (String language : languages) {
+                if (language.equals(block.language())) {
+                    return block.code();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析代码块语言标识（取第一个单词并转小写）
+     *
+     * @param infoString ``` 之后到行尾的内容
+     * @return 语言标识，没有时返回空字符串
+     */
+    public static String parseLanguage(String infoString) {
+        String info = infoString.trim();
+        int end = 0;
+        while (end < info.length() && !Character.isWhitespace(info.charAt(end))) {
+            end++;
+        }
+        return info.substring(0, end).toLowerCase();
+    }
+}
@@ -2,17 +2,11 @@ package com.zw.zwaicodemother.core.parser;
 
 import com.zw.zwaicodemother.ai.model.HtmlCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /*
 * HTML 单文件代码解析器
 * */
 public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN =Pattern.compile("```html\\s*\\n([\\s\\S]*?)```",Pattern.CASE_INSENSITIVE);
-
-
     @Override
     public HtmlCodeResult parseCode(String codeContent) {
         HtmlCodeResult htmlCodeResult = new HtmlCodeResult();
@@ -34,10 +28,6 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
      * @return HTML代码
      */
     private String extractHtmlCode(String content) {
-        Matcher matcher=HTML_CODE_PATTERN.matcher(content);
-        if(matcher.find()){
-            return matcher.group(1);
-        }
-        return null;
+        return CodeFenceScanner.findFirst(CodeFenceScanner.scan(content), "html");
     }
 }
@@ -2,24 +2,23 @@ package com.zw.zwaicodemother.core.parser;
 
 import com.zw.zwaicodemother.ai.model.MultiFileCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /*
 * 多文件代码解析器（HTML + CSS + JS）
+ * 单遍扫描全部代码块后按语言取第一个
 * */
 public class MultiFileCodeParser implements  CodeParser<MultiFileCodeResult> {
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
 
     @Override
     public MultiFileCodeResult parseCode(String codeContent) {
         MultiFileCodeResult multiFileCodeResult = new MultiFileCodeResult();
+        //一次扫描出所有代码块
+        List<CodeFenceScanner.CodeBlock> codeBlocks = CodeFenceScanner.scan(codeContent);
         //提取各类代码
-        String htmlCode =extractCodePattern(codeContent,HTML_CODE_PATTERN);
-        String cssCode =extractCodePattern(codeContent,CSS_CODE_PATTERN);
-        String jsCode =extractCodePattern(codeContent,JS_CODE_PATTERN);
+        String htmlCode =CodeFenceScanner.findFirst(codeBlocks,"html");
+        String cssCode =CodeFenceScanner.findFirst(codeBlocks,"css");
+        String jsCode =CodeFenceScanner.findFirst(codeBlocks,"js","javascript");
         //设置Html代码
         if(htmlCode != null && !htmlCode.trim().isEmpty()){
             multiFileCodeResult.setHtmlCode(htmlCode.trim());
@@ -35,20 +34,5 @@ public class MultiFileCodeParser implements  CodeParser<MultiFileCodeResult> {
         return multiFileCodeResult;
     }
 
-    /**
-     * 根据正则模式提取代码
-     *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
-     */
-    private String extractCodePattern(String content, Pattern pattern) {
-        Matcher matcher =pattern.matcher(content);
-        if(matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
-
 
 }
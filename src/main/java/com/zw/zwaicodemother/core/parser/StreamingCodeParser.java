@@ -0,0 +1,147 @@
+package com.zw.zwaicodemother.core.parser;
+
+import java.util.function.BiPredicate;
+
+/*
+* 流式代码解析器（推模式）
+ * 逐块接收模型输出，跨 chunk 边界跟踪代码块（```lang ... ```）状态，
+ * 每当一个代码块闭合就立即回调，无需等待整个响应结束
+ * 代码块识别规则与 CodeFenceScanner 保持一致
+* */
+public class StreamingCodeParser {
+
+    private static final String FENCE = "```";
+
+    /**
+     * 代码块闭合回调：(语言标识, 代码内容)，返回该代码块是否被采用（例如已写入文件）
+     */
+    private final BiPredicate<String, String> codeBlockConsumer;
+
+    /**
+     * 尚未遇到换行符的半行内容（跨 chunk 暂存）
+     */
+    private final StringBuilder lineBuffer = new StringBuilder();
+
+    /**
+     * 当前代码块内容
+     */
+    private final StringBuilder blockBuffer = new StringBuilder();
+
+    /**
+     * 第一个被采用的代码块闭合前的原始内容，用于没有采用任何代码块时的兜底解析
+     */
+    private StringBuilder rawBuffer = new StringBuilder();
+
+    /**
+     * 当前所在代码块的语言，null 表示不在代码块内
+     */
+    private String currentLanguage;
+
+    /**
+     * 已回调的代码块数量
+     */
+    private int emittedBlockCount;
+
+    public StreamingCodeParser(BiPredicate<String, String> codeBlockConsumer) {
+        this.codeBlockConsumer = codeBlockConsumer;
+    }
+
+    /**
+     * 接收一个输出片段
+     *
+     * @param chunk 模型输出片段
+     */
+    public void onNext(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (rawBuffer != null) {
+            rawBuffer.append(chunk);
+        }
+        int start = 0;
+        int newlineIndex;
+        while ((newlineIndex = chunk.indexOf('\n', start)) >= 0) {
+            lineBuffer.append(chunk, start, newlineIndex);
+            processLine(lineBuffer.toString(), true);
+            lineBuffer.setLength(0);
+            start = newlineIndex + 1;
+        }
+        lineBuffer.append(chunk, start, chunk.length());
+    }
+
+    /**
+     * 输出结束，处理最后一行（结尾的 ``` 往往没有换行符）
+     * 未闭合的代码块会被丢弃，与正则解析的行为保持一致
+     */
+    public void onComplete() {
+        if (!lineBuffer.isEmpty()) {
+            processLine(lineBuffer.toString(), false);
+            lineBuffer.setLength(0);
+        }
+        currentLanguage = null;
+        blockBuffer.setLength(0);
+    }
+
+    /**
+     * 获取未采用任何代码块时的原始内容
+     *
+     * @return 原始内容；已有代码块被采用时返回 null
+     */
+    public String getUnfencedContent() {
+        return rawBuffer == null ? null : rawBuffer.toString();
+    }
+
+    /**
+     * 获取已闭合的代码块数量
+     */
+    public int getEmittedBlockCount() {
+        return emittedBlockCount;
+    }
+
+    /**
+     * 处理一行内容
+     *
+     * @param line       行内容（不含换行符）
+     * @param terminated 该行是否以换行符结尾
+     */
+    private void processLine(String line, boolean terminated) {
+        int fenceIndex = line.indexOf(FENCE);
+        if (currentLanguage == null) {
+            // 代码块外：遇到 ``` 即开启新的代码块，``` 后面是语言标识
+            if (fenceIndex >= 0) {
+                currentLanguage = CodeFenceScanner.parseLanguage(line.substring(fenceIndex + FENCE.length()));
+                blockBuffer.setLength(0);
+            }
+            return;
+        }
+        // 代码块内：遇到 ``` 即闭合
+        if (fenceIndex >= 0) {
+            blockBuffer.append(line, 0, fenceIndex);
+            emitBlock();
+            return;
+        }
+        blockBuffer.append(line);
+        if (terminated) {
+            blockBuffer.append('\n');
+        }
+    }
+
+    /**
+     * 回调已闭合的代码块
+     */
+    private void emitBlock() {
+        String language = currentLanguage;
+        String code = blockBuffer.toString().trim();
+        currentLanguage = null;
+        blockBuffer.setLength(0);
+        if (code.isEmpty()) {
+            return;
+        }
+        emittedBlockCount++;
+        // 只有代码块真正被采用后才丢弃兜底内容，
+        // 否则例如 HTML 模式下先输出的 ```css 块会让兜底解析拿到空内容
+        if (codeBlockConsumer.test(language, code)) {
+            rawBuffer = null;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 
 import java.io.File;
+import java.util.Set;
 
 /*
 * 代码文件保存执行器
@@ -34,5 +35,51 @@ public class CodeFileSaverExecutor {
             default ->throw  new BusinessException(ErrorCode.SYSTEM_ERROR,"不支持的代码生成类型" + codeGenType);
         };
     }
-}
 
+    /**
+     * 解析代码块对应的文件名
+     *
+     * @param language    代码块语言标识
+     * @param codeGenType 代码生成类型
+     * @return 文件名，不支持的语言返回 null
+     */
+    public static String resolveCodeBlockFileName(String language, CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType){
+            case HTML -> htmlCodeFileSaverTemplate.resolveFileName(language);
+            case MULTI_FILE -> multiFileCodeFileSaverTemplate.resolveFileName(language);
+            default -> null;
+        };
+    }
+
+    /**
+     * 保存单个代码块（流式解析使用）
+     *
+     * @param language    代码块语言标识
+     * @param code        代码内容
+     * @param codeGenType 代码生成类型
+     * @param appId       应用 ID
+     * @return 写入的文件名，未写入时返回 null
+     */
+    public static String executeCodeBlockSaver(String language, String code, CodeGenTypeEnum codeGenType, Long appId) {
+        return switch (codeGenType){
+            case HTML -> htmlCodeFileSaverTemplate.saveCodeBlock(language, code, appId);
+            case MULTI_FILE -> multiFileCodeFileSaverTemplate.saveCodeBlock(language, code, appId);
+            default ->throw  new BusinessException(ErrorCode.SYSTEM_ERROR,"不支持的代码生成类型" + codeGenType);
+        };
+    }
+
+    /**
+     * 清空本轮流式保存中没有输出的文件
+     *
+     * @param savedFileNames 本轮已写入的文件名
+     * @param codeGenType    代码生成类型
+     * @param appId          应用 ID
+     */
+    public static void executeClearUnsavedFiles(Set<String> savedFileNames, CodeGenTypeEnum codeGenType, Long appId) {
+        switch (codeGenType){
+            case HTML -> htmlCodeFileSaverTemplate.clearUnsavedFiles(savedFileNames, appId);
+            case MULTI_FILE -> multiFileCodeFileSaverTemplate.clearUnsavedFiles(savedFileNames, appId);
+            default ->throw  new BusinessException(ErrorCode.SYSTEM_ERROR,"不支持的代码生成类型" + codeGenType);
+        }
+    }
+}
@@ -9,6 +9,8 @@ import com.zw.zwaicodemother.exception.ErrorCode;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
 
 /*
 * 抽象代码文件保存器 - 模板方法模式
@@ -33,6 +35,40 @@ public abstract class CodeFileSaverTemplate<T> {
         //4.返回目录文件对象
         return  new File(baseDirPath);
     }
+    /**
+     * 保存单个代码块（流式解析时每闭合一个代码块调用一次）
+     *
+     * @param language 代码块语言标识
+     * @param code     代码内容
+     * @param appId    应用 ID
+     * @return 写入的文件名，语言不受支持或内容为空时返回 null
+     */
+    public final String saveCodeBlock(String language, String code, Long appId) {
+        String fileName = resolveFileName(language);
+        if (StrUtil.isBlank(fileName) || StrUtil.isBlank(code)) {
+            return null;
+        }
+        String baseDirPath = buildUniqueDir(appId);
+        writteToFile(baseDirPath, fileName, code);
+        return fileName;
+    }
+
+    /**
+     * 清空本轮没有输出的文件（流式保存结束后调用）
+     * 与整体保存的行为保持一致：模型省略的文件不能残留上一轮生成的旧内容
+     *
+     * @param savedFileNames 本轮已写入的文件名
+     * @param appId          应用 ID
+     */
+    public final void clearUnsavedFiles(Set<String> savedFileNames, Long appId) {
+        String baseDirPath = buildUniqueDir(appId);
+        for (String fileName : getOutputFileNames()) {
+            if (!savedFileNames.contains(fileName)) {
+                writteToFile(baseDirPath, fileName, "");
+            }
+        }
+    }
+
     /**
      * 验证输入参数（可由子类覆盖）
      *
@@ -74,6 +110,25 @@ public abstract class CodeFileSaverTemplate<T> {
         }
     }
 
+    /**
+     * 根据代码块语言标识解析要写入的文件名（可由子类覆盖）
+     *
+     * @param language 代码块语言标识（小写）
+     * @return 文件名，不支持的语言返回 null
+     */
+    protected String resolveFileName(String language) {
+        return null;
+    }
+
+    /**
+     * 该类型一次生成会写出的全部文件名（可由子类覆盖）
+     *
+     * @return 文件名列表
+     */
+    protected List<String> getOutputFileNames() {
+        return List.of();
+    }
+
     /**
      * 获取代码类型（由子类实现）
      *
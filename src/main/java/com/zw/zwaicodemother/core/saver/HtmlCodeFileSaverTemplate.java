@@ -6,6 +6,8 @@ import com.zw.zwaicodemother.ai.model.HtmlCodeResult;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 
+import java.util.List;
+
 /**
  * HTML代码文件保存器
  *
@@ -35,4 +37,14 @@ public class HtmlCodeFileSaverTemplate extends  CodeFileSaverTemplate<HtmlCodeRe
 
     }
 
+    @Override
+    protected List<String> getOutputFileNames() {
+        return List.of("index.html");
+    }
+
+    @Override
+    protected String resolveFileName(String language) {
+        return "html".equals(language) ? "index.html" : null;
+    }
+
 }
@@ -6,6 +6,8 @@ import com.zw.zwaicodemother.ai.model.MultiFileCodeResult;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 
+import java.util.List;
+
 public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiFileCodeResult> {
     @Override
     protected CodeGenTypeEnum getCodeType() {
@@ -22,6 +24,24 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
         writteToFile(baseDirPath,"script.js",result.getJsCode());
     }
 
+    @Override
+    protected String resolveFileName(String language) {
+        if (language == null) {
+            return null;
+        }
+        return switch (language) {
+            case "html" -> "index.html";
+            case "css" -> "style.css";
+            case "js", "javascript" -> "script.js";
+            default -> null;
+        };
+    }
+
+    @Override
+    protected List<String> getOutputFileNames() {
+        return List.of("index.html", "style.css", "script.js");
+    }
+
     @Override
     protected void validateInput(MultiFileCodeResult result) {
         super.validateInput(result);
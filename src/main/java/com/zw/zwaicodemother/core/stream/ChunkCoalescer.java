@@ -0,0 +1,172 @@
+package com.zw.zwaicodemother.core.stream;
+
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本片段合并
+ * 上游（模型回调）无法暂停，全部接收后在内存中拼接，按下游需求发送：
+ * 1. 攒够 maxChars 个字符，或第一个片段到达后超过 maxDelay，且下游有需求时发送一帧
+ * 2. 下游消费慢时不丢弃也不无限排队，而是继续拼接到同一帧里，帧数随消费速度自适应
+ * 3. 积压字符数超过 maxPendingChars 时以溢出异常结束流（溢出策略：ERROR）
+ */
+public final class ChunkCoalescer {
+
+    private ChunkCoalescer() {
+    }
+
+    /**
+     * 合并文本片段
+     *
+     * @param source          原始片段流
+     * @param maxChars        单帧字符数上限
+     * @param maxDelay        单帧最长等待时间
+     * @param maxPendingChars 最大积压字符数
+     * @return 合并后的帧流
+     */
+    public static Flux<String> coalesce(Flux<String> source, int maxChars, Duration maxDelay, int maxPendingChars) {
+        return Flux.create(sink -> new CoalescingSubscriber(sink, maxChars, maxDelay, maxPendingChars).start(source),
+                // 只在有需求时发送，超发说明逻辑有误，直接报错
+                FluxSink.OverflowStrategy.ERROR);
+    }
+
+    private static final class CoalescingSubscriber extends BaseSubscriber<String> {
+
+        private final FluxSink<String> sink;
+
+        private final int maxChars;
+
+        private final long maxDelayMillis;
+
+        private final int maxPendingChars;
+
+        private final StringBuilder pending = new StringBuilder();
+
+        private Disposable timer;
+
+        /**
+         * 当前帧已到最长等待时间
+         */
+        private boolean due;
+
+        private boolean done;
+
+        private Throwable error;
+
+        private boolean terminated;
+
+        private CoalescingSubscriber(FluxSink<String> sink, int maxChars, Duration maxDelay, int maxPendingChars) {
+            this.sink = sink;
+            this.maxChars = maxChars;
+            this.maxDelayMillis = maxDelay.toMillis();
+            this.maxPendingChars = maxPendingChars;
+        }
+
+        private void start(Flux<String> source) {
+            sink.onRequest(n -> drain());
+            // 完成、异常、客户端断开都会走到这里
+            sink.onDispose(() -> {
+                dispose();
+                synchronized (this) {
+                    cancelTimer();
+                }
+            });
+            source.subscribe(this);
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // 上游推送无法暂停，全部接收
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        protected void hookOnNext(String chunk) {
+            synchronized (this) {
+                if (terminated || chunk.isEmpty()) {
+                    return;
+                }
+                pending.append(chunk);
+                if (pending.length() > maxPendingChars) {
+                    terminated = true;
+                    pending.setLength(0);
+                    cancelTimer();
+                    dispose();
+                    sink.error(Exceptions.failWithOverflow("客户端接收过慢，待发送内容超过上限"));
+                    return;
+                }
+                if (timer == null && !due && pending.length() < maxChars) {
+                    timer = Schedulers.parallel().schedule(this::onTimeout, maxDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            synchronized (this) {
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            synchronized (this) {
+                done = true;
+                error = throwable;
+            }
+            drain();
+        }
+
+        private void onTimeout() {
+            synchronized (this) {
+                timer = null;
+                due = true;
+            }
+            drain();
+        }
+
+        /**
+         * 满足发送条件且下游有需求时发送一帧；上游结束且内容发完后结束流
+         * 在锁内发送保证帧的顺序，sink.next 触发的重入调用只会看到已清空的缓冲区
+         */
+        private synchronized void drain() {
+            if (terminated) {
+                return;
+            }
+            if (!pending.isEmpty() && sink.requestedFromDownstream() > 0
+                    && (done || due || pending.length() >= maxChars)) {
+                String frame = pending.toString();
+                pending.setLength(0);
+                due = false;
+                cancelTimer();
+                sink.next(frame);
+            }
+            if (done && pending.isEmpty() && !terminated) {
+                terminated = true;
+                if (error != null) {
+                    sink.error(error);
+                } else {
+                    sink.complete();
+                }
+            }
+        }
+
+        private void cancelTimer() {
+            Disposable current = timer;
+            if (current != null) {
+                current.dispose();
+                timer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.zw.zwaicodemother.core.stream;
+
+import com.zw.zwaicodemother.config.SseStreamConfig;
+import jakarta.annotation.Resource;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * SSE 输出整形
+ * 1. 把细碎的文本片段合并成按大小/时间限定的帧，积压有上限
+ * 2. 长时间没有输出时发送心跳注释，防止代理断开连接
+ */
+@Component
+public class SseStreamShaper {
+
+    @Resource
+    private SseStreamConfig sseStreamConfig;
+
+    /**
+     * 合并文本片段
+     */
+    public Flux<String> coalesce(Flux<String> contentFlux) {
+        return ChunkCoalescer.coalesce(contentFlux,
+                sseStreamConfig.getFrameMaxChars(),
+                Duration.ofMillis(sseStreamConfig.getFrameMaxDelayMillis()),
+                sseStreamConfig.getMaxPendingChars());
+    }
+
+    /**
+     * 附加心跳，事件流结束时心跳随之停止
+     * 心跳是 SSE 注释行，EventSource 会直接忽略
+     */
+    public Flux<ServerSentEvent<String>> withHeartbeat(Flux<ServerSentEvent<String>> eventFlux) {
+        Duration interval = Duration.ofSeconds(sseStreamConfig.getHeartbeatSeconds());
+        // 预取数量为 1，把客户端的消费速度原样传递给上游，由上游合并片段
+        return eventFlux.publish(shared -> Flux.merge(1, shared,
+                Flux.interval(interval, interval)
+                        // 客户端还没取走上一条数据时不需要心跳
+                        .onBackpressureDrop()
+                        .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.ignoreElements())), 1);
+    }
+}
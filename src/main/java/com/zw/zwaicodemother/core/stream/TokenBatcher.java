@@ -0,0 +1,91 @@
+package com.zw.zwaicodemother.core.stream;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 模型输出片段合并器（回调模式）
+ * 用于 TokenStream 这类回调接口：片段先攒在缓冲区，攒够 maxChars 个字符或第一个片段到达后超过 maxDelay 时整批回调；
+ * 工具调用等其他事件到达前需先调用 {@link #flush()}，保证输出顺序不变
+ */
+public class TokenBatcher {
+
+    private final int maxChars;
+
+    private final long maxDelayMillis;
+
+    private final Consumer<String> batchConsumer;
+
+    private final StringBuilder pending = new StringBuilder();
+
+    private Disposable timer;
+
+    private boolean closed;
+
+    /**
+     * @param maxChars      单批最大字符数
+     * @param maxDelay      单批最长等待时间
+     * @param batchConsumer 整批回调（在锁内调用，保证批次顺序）
+     */
+    public TokenBatcher(int maxChars, Duration maxDelay, Consumer<String> batchConsumer) {
+        this.maxChars = maxChars;
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.batchConsumer = batchConsumer;
+    }
+
+    /**
+     * 追加一个片段
+     */
+    public synchronized void append(String token) {
+        if (closed || token == null || token.isEmpty()) {
+            return;
+        }
+        pending.append(token);
+        if (pending.length() >= maxChars) {
+            flush();
+        } else if (timer == null) {
+            timer = Schedulers.parallel().schedule(this::flush, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 立即发送缓冲区中的内容
+     */
+    public synchronized void flush() {
+        cancelTimer();
+        if (closed || pending.isEmpty()) {
+            return;
+        }
+        String batch = pending.toString();
+        pending.setLength(0);
+        batchConsumer.accept(batch);
+    }
+
+    /**
+     * 发送剩余内容并停止接收（流正常结束时调用）
+     */
+    public synchronized void close() {
+        flush();
+        closed = true;
+    }
+
+    /**
+     * 丢弃剩余内容并停止接收（流被取消时调用）
+     */
+    public synchronized void discard() {
+        cancelTimer();
+        pending.setLength(0);
+        closed = true;
+    }
+
+    private void cancelTimer() {
+        if (timer != null) {
+            timer.dispose();
+            timer = null;
+        }
+    }
+}
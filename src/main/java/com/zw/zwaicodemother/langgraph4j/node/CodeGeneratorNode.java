@@ -2,6 +2,7 @@ package com.zw.zwaicodemother.langgraph4j.node;
 
 import com.zw.zwaicodemother.ai.AiCodeGeneratorServiceFactory;
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
+import com.zw.zwaicodemother.ai.model.message.StreamMessage;
 import com.zw.zwaicodemother.constant.AppConstant;
 import com.zw.zwaicodemother.core.AiCodeGeneratorFacade;
 import com.zw.zwaicodemother.langgraph4j.model.QualityResult;
@@ -36,7 +37,7 @@ public class CodeGeneratorNode {
             // 先使用固定的 appId (后续再整合到业务中)
             Long appId = 0L;
             // 调用流式代码生成
-            Flux<String> codeStream = codeGeneratorFacade.generateAndSaveCodeStream(userMessage, generationType, appId);
+            Flux<StreamMessage> codeStream = codeGeneratorFacade.generateAndSaveCodeStream(userMessage, generationType, appId);
             // 同步等待流式输出完成
             codeStream.blockLast(Duration.ofMinutes(10)); // 最多等待 10 分钟
             // 根据类型设置生成目录
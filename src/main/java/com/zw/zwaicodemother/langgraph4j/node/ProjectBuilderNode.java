@@ -1,7 +1,7 @@
 package com.zw.zwaicodemother.langgraph4j.node;
 
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
-import com.zw.zwaicodemother.core.builder.VueProjectBuilder;
+import com.zw.zwaicodemother.core.builder.VueBuildScheduler;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 import com.zw.zwaicodemother.langgraph4j.state.WorkflowContext;
@@ -27,11 +27,11 @@ public class ProjectBuilderNode {
             String generatedCodeDir = context.getGeneratedCodeDir();
             CodeGenTypeEnum generationType = context.getGenerationType();
             String buildResultDir;
-            // 一定是 Vue 项目类型：使用 VueProjectBuilder 进行构建
+            // 一定是 Vue 项目类型：通过构建调度器进行构建
             try {
-                VueProjectBuilder vueBuilder = SpringContextUtil.getBean(VueProjectBuilder.class);
+                VueBuildScheduler vueBuildScheduler = SpringContextUtil.getBean(VueBuildScheduler.class);
                 // 执行 Vue 项目构建（npm install + npm run build）
-                boolean buildSuccess = vueBuilder.buildProject(generatedCodeDir);
+                boolean buildSuccess = vueBuildScheduler.buildProject(generatedCodeDir);
                 if (buildSuccess) {
                     // 构建成功，返回 dist 目录路径
                     buildResultDir = generatedCodeDir + File.separator + "dist";
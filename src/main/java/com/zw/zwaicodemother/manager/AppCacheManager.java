@@ -0,0 +1,136 @@
+package com.zw.zwaicodemother.manager;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zw.zwaicodemother.config.AppCacheConfig;
+import com.zw.zwaicodemother.model.entity.App;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 应用实体两级缓存（Cache-Aside）
+ * 1. 一级：Caffeine 本地缓存，同一 key 并发加载时只查询一次
+ * 2. 二级：Redis 共享缓存
+ * 3. 更新、删除后删除两级缓存，并通过 Redis 发布订阅通知其他节点清除本地缓存；
+ *    1 秒后再删除一次，覆盖并发读在更新提交前读到旧值又写回缓存的情况
+ * 4. 返回副本，调用方修改返回的对象不会污染缓存
+ */
+@Component
+@Slf4j
+public class AppCacheManager {
+
+    private static final String REDIS_KEY_PREFIX = "app:entity:";
+
+    /**
+     * 延迟二次删除的时间（毫秒）
+     */
+    private static final long DELAYED_EVICT_MILLIS = 1000;
+
+    @Resource
+    private AppCacheConfig appCacheConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private Cache<Long, App> localCache;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(appCacheConfig.getLocalMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(appCacheConfig.getLocalTtlSeconds()))
+                .recordStats()
+                .build();
+        // 其他节点（包括自己）更新应用后清除本地缓存
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            if (StrUtil.isNumeric(body)) {
+                localCache.invalidate(Long.valueOf(body));
+            }
+        }, new ChannelTopic(appCacheConfig.getInvalidationChannel()));
+    }
+
+    /**
+     * 读取应用，缓存未命中时调用 loader 查询数据库并写入缓存
+     *
+     * @param appId  应用 ID
+     * @param loader 数据库查询
+     * @return 应用副本，不存在时返回 null（不缓存）
+     */
+    public App get(Long appId, Function<Long, App> loader) {
+        if (!appCacheConfig.isEnabled() || appId == null) {
+            return loader.apply(appId);
+        }
+        App cached = localCache.get(appId, id -> loadFromRedisOrDb(id, loader));
+        return cached == null ? null : BeanUtil.copyProperties(cached, App.class);
+    }
+
+    /**
+     * 清除应用缓存（在数据库更新、删除之后调用）
+     */
+    public void evict(Long appId) {
+        if (!appCacheConfig.isEnabled() || appId == null) {
+            return;
+        }
+        doEvict(appId);
+        CompletableFuture.delayedExecutor(DELAYED_EVICT_MILLIS, TimeUnit.MILLISECONDS)
+                .execute(() -> doEvict(appId));
+    }
+
+    /**
+     * 本地缓存命中率等统计
+     */
+    public String getStats() {
+        return localCache.stats().toString();
+    }
+
+    private App loadFromRedisOrDb(Long appId, Function<Long, App> loader) {
+        String key = REDIS_KEY_PREFIX + appId;
+        try {
+            String json = stringRedisTemplate.opsForValue().get(key);
+            if (json != null) {
+                return JSONUtil.toBean(json, App.class);
+            }
+        } catch (Exception e) {
+            // Redis 不可用时直接查库
+            log.warn("读取应用缓存失败，appId: {}, 错误: {}", appId, e.getMessage());
+        }
+        App app = loader.apply(appId);
+        if (app != null) {
+            try {
+                stringRedisTemplate.opsForValue().set(key, JSONUtil.toJsonStr(app),
+                        Duration.ofSeconds(appCacheConfig.getRedisTtlSeconds()));
+            } catch (Exception e) {
+                log.warn("写入应用缓存失败，appId: {}, 错误: {}", appId, e.getMessage());
+            }
+        }
+        return app;
+    }
+
+    private void doEvict(Long appId) {
+        localCache.invalidate(appId);
+        try {
+            stringRedisTemplate.delete(REDIS_KEY_PREFIX + appId);
+            stringRedisTemplate.convertAndSend(appCacheConfig.getInvalidationChannel(), String.valueOf(appId));
+        } catch (Exception e) {
+            log.error("清除应用缓存失败，appId: {}", appId, e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.zw.zwaicodemother.manager;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zw.zwaicodemother.config.ChatHistoryCacheConfig;
+import com.zw.zwaicodemother.model.entity.ChatHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 对话历史热点窗口缓存
+ * 每个应用缓存最新的 windowSize + 1 条消息（多出的一条用于判断窗口之外是否还有更早的消息），
+ * 打开对话页和向上翻看最近几页时不再查询数据库。
+ * 新增消息入库后、删除消息后失效（本节点直接、其他节点通过 Redis 广播），
+ * 与登录用户缓存一样使用版本号避免并发加载把旧窗口写回缓存
+ */
+@Component
+@Slf4j
+public class ChatHistoryHotCache {
+
+    @Resource
+    private ChatHistoryCacheConfig chatHistoryCacheConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private Cache<Long, Window> cache;
+
+    /**
+     * 应用版本号，只记录启动后发生过变更的应用，不存在时为 0
+     */
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存的窗口
+     *
+     * @param records 按 createTime、id 降序排列的最新消息
+     * @param version 加载开始时的版本号
+     */
+    private record Window(List<ChatHistory> records, long version) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(chatHistoryCacheConfig.getMaxTotalChars())
+                .weigher((Long appId, Window window) -> {
+                    long chars = 0;
+                    for (ChatHistory chatHistory : window.records()) {
+                        chars += StrUtil.length(chatHistory.getMessage());
+                    }
+                    return (int) Math.min(Integer.MAX_VALUE, chars + window.records().size());
+                })
+                .expireAfterWrite(Duration.ofSeconds(chatHistoryCacheConfig.getTtlSeconds()))
+                .build();
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            if (StrUtil.isNumeric(body)) {
+                invalidateLocal(Long.valueOf(body));
+            }
+        }, new ChannelTopic(chatHistoryCacheConfig.getInvalidationChannel()));
+    }
+
+    public boolean isEnabled() {
+        return chatHistoryCacheConfig.isEnabled();
+    }
+
+    public int getWindowSize() {
+        return chatHistoryCacheConfig.getWindowSize();
+    }
+
+    /**
+     * 获取应用最新消息窗口（只读，调用方不能修改列表和其中的对象）
+     * 版本号在调用 loader 之前读取：loader 开始前入库的消息能被它查到，
+     * 之后入库的消息会递增版本号使这次加载的结果作废
+     *
+     * @param appId  应用 ID
+     * @param loader 查询最新 windowSize + 1 条消息
+     * @return 按 createTime、id 降序排列的消息
+     */
+    public List<ChatHistory> getWindow(Long appId, Function<Long, List<ChatHistory>> loader) {
+        long version = versions.getOrDefault(appId, 0L);
+        Window window = cache.getIfPresent(appId);
+        if (window != null && window.version() == version) {
+            return window.records();
+        }
+        List<ChatHistory> records = List.copyOf(loader.apply(appId));
+        cache.put(appId, new Window(records, version));
+        return records;
+    }
+
+    /**
+     * 消息入库后、删除消息后调用
+     */
+    public void evict(Long appId) {
+        if (!chatHistoryCacheConfig.isEnabled() || appId == null) {
+            return;
+        }
+        invalidateLocal(appId);
+        try {
+            stringRedisTemplate.convertAndSend(chatHistoryCacheConfig.getInvalidationChannel(), String.valueOf(appId));
+        } catch (Exception e) {
+            // 广播失败时其他节点依赖过期时间兜底
+            log.error("广播对话历史缓存失效失败，appId: {}", appId, e);
+        }
+    }
+
+    private void invalidateLocal(Long appId) {
+        versions.merge(appId, 1L, Long::sum);
+        cache.invalidate(appId);
+    }
+}
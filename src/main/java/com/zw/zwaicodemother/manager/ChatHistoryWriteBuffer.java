@@ -0,0 +1,498 @@
+package com.zw.zwaicodemother.manager;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.zw.zwaicodemother.config.ChatHistoryWriteConfig;
+import com.zw.zwaicodemother.mapper.ChatHistoryMapper;
+import com.zw.zwaicodemother.model.entity.ChatHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 对话历史异步批量写入缓冲区（write-behind）
+ * 功能：
+ * 1. 调用方只做内存入队和本地文件追加，不阻塞在 MySQL 上
+ * 2. 专用单线程按批大小或定时把积压的消息合并为多行 INSERT
+ * 3. 未入库的消息同时追加到本地溢写文件，入库成功后删除；进程崩溃重启时重放（按 id 去重）
+ *    单条写入失败的行转存到 .failed 文件，下次启动时与溢写文件一起重放
+ * 4. 读取或删除某个应用的历史前调用 {@link #awaitFlushed(Long)}，保证操作的是已入库的完整数据
+ * 5. 消息入库后才失效热点窗口缓存，其他节点收到广播时重新加载一定能查到这些消息
+ */
+@Component
+@Slf4j
+public class ChatHistoryWriteBuffer {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String FAILED_SUFFIX = ".failed";
+
+    private static final String FILE_URL_PREFIX = "file:";
+
+    /**
+     * 等待指定应用的消息入库的最长时间（秒）
+     */
+    private static final int AWAIT_FLUSH_SECONDS = 5;
+
+    @Resource
+    private ChatHistoryWriteConfig chatHistoryWriteConfig;
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private WebProperties webProperties;
+
+    @Resource
+    private ChatHistoryHotCache chatHistoryHotCache;
+
+    /**
+     * 保护 pendingRows、pendingCountByApp、currentSegment 和 sealedSegments
+     */
+    private final Object lock = new Object();
+
+    /**
+     * 待写入的行
+     */
+    private List<ChatHistory> pendingRows = new ArrayList<>();
+
+    /**
+     * 每个应用未入库（含正在写入）的行数
+     */
+    private final Map<Long, Integer> pendingCountByApp = new HashMap<>();
+
+    /**
+     * 当前追加的溢写文件
+     */
+    private FileChannel currentSegment;
+
+    private Path currentSegmentPath;
+
+    /**
+     * 已轮转、等待其中的行全部入库后删除的溢写文件
+     */
+    private final List<Path> sealedSegments = new ArrayList<>();
+
+    private Path spillDir;
+
+    private ScheduledExecutorService writerExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!chatHistoryWriteConfig.isEnabled()) {
+            return;
+        }
+        spillDir = Paths.get(chatHistoryWriteConfig.getSpillDir()).toAbsolutePath().normalize();
+        checkNotServed(spillDir);
+        try {
+            Files.createDirectories(spillDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("创建对话历史溢写目录失败: " + spillDir, e);
+        }
+        // 先重放上次未入库的消息（含写入失败的行），再开始接收新的消息
+        requeueFailedRows();
+        replaySpilledSegments();
+        if (Files.exists(failedFilePath())) {
+            log.warn("仍有对话历史无法入库，已保留在失败文件中，请人工处理: {}", failedFilePath());
+        }
+        writerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chat-history-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = chatHistoryWriteConfig.getFlushIntervalMillis();
+        writerExecutor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("对话历史异步写入已开启，批大小: {}，间隔: {}ms，溢写目录: {}",
+                chatHistoryWriteConfig.getBatchSize(), interval, spillDir);
+    }
+
+    /**
+     * 是否开启异步写入
+     */
+    public boolean isEnabled() {
+        return writerExecutor != null && !writerExecutor.isShutdown();
+    }
+
+    /**
+     * 写入一条消息（异步）
+     * 主键和创建时间在入队时确定，保证消息顺序不受入库时间影响
+     *
+     * @return 已入队返回 true；积压过多时返回 false，调用方应同步插入
+     */
+    public boolean offer(ChatHistory chatHistory) {
+        if (chatHistory.getId() == null) {
+            chatHistory.setId(IdUtil.getSnowflakeNextId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (chatHistory.getCreateTime() == null) {
+            chatHistory.setCreateTime(now);
+        }
+        chatHistory.setUpdateTime(now);
+        chatHistory.setIsDelete(0);
+        boolean reachBatchSize;
+        synchronized (lock) {
+            if (pendingRows.size() >= chatHistoryWriteConfig.getMaxPendingRows()) {
+                log.warn("对话历史积压 {} 条，退化为同步写入", pendingRows.size());
+                return false;
+            }
+            try {
+                appendToSegment(chatHistory);
+            } catch (IOException e) {
+                log.error("追加对话历史溢写文件失败，退化为同步写入", e);
+                return false;
+            }
+            pendingRows.add(chatHistory);
+            pendingCountByApp.merge(chatHistory.getAppId(), 1, Integer::sum);
+            reachBatchSize = pendingRows.size() >= chatHistoryWriteConfig.getBatchSize();
+        }
+        if (reachBatchSize && !writerExecutor.isShutdown()) {
+            writerExecutor.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * 等待指定应用已入队的消息全部入库（读取历史前调用）
+     * 没有积压时立即返回
+     */
+    public void awaitFlushed(Long appId) {
+        if (!isEnabled() || appId == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (!pendingCountByApp.containsKey(appId)) {
+                return;
+            }
+        }
+        // 单线程执行，这次提交的 flush 会在正在进行的写入之后执行
+        Future<?> future = writerExecutor.submit(this::flush);
+        try {
+            future.get(AWAIT_FLUSH_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("等待应用 {} 的对话历史入库超时或失败: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 指定应用是否还有未入库的消息
+     */
+    public boolean hasPending(Long appId) {
+        synchronized (lock) {
+            return pendingCountByApp.containsKey(appId);
+        }
+    }
+
+    /**
+     * 写入一批积压的消息（只在写入线程执行）
+     */
+    private void flush() {
+        List<ChatHistory> batch;
+        List<Path> segmentsToDelete;
+        synchronized (lock) {
+            if (pendingRows.isEmpty()) {
+                return;
+            }
+            batch = pendingRows;
+            pendingRows = new ArrayList<>();
+            // 轮转溢写文件：之后的消息写入新文件，这一批入库后旧文件即可删除
+            sealCurrentSegment();
+            segmentsToDelete = new ArrayList<>(sealedSegments);
+        }
+        long start = System.currentTimeMillis();
+        boolean success = insertInBatches(batch, false);
+        if (!success) {
+            // 批量写入失败（可能已部分入库），去重后逐条重试，仍失败的行记录到 .failed 文件
+            success = insertInBatches(batch, true);
+        }
+        synchronized (lock) {
+            if (!success) {
+                // 数据库不可用，放回队首等待下次重试，溢写文件保留
+                batch.addAll(pendingRows);
+                pendingRows = batch;
+                return;
+            }
+            for (ChatHistory row : batch) {
+                pendingCountByApp.computeIfPresent(row.getAppId(), (key, count) -> count > 1 ? count - 1 : null);
+            }
+            sealedSegments.removeAll(segmentsToDelete);
+        }
+        segmentsToDelete.forEach(this::deleteQuietly);
+        evictHotCache(batch);
+        log.debug("写入对话历史 {} 条，耗时 {}ms", batch.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 分批插入
+     *
+     * @param rows  待插入的行
+     * @param retry 是否为重试：重试时先按 id 去重，再逐条插入，单条失败的行转存到 .failed 文件后跳过
+     * @return 是否全部处理完成（数据库不可用时返回 false）
+     */
+    private boolean insertInBatches(List<ChatHistory> rows, boolean retry) {
+        int batchSize = chatHistoryWriteConfig.getBatchSize();
+        try {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<ChatHistory> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+                if (!retry) {
+                    chatHistoryMapper.insertBatch(chunk);
+                    continue;
+                }
+                List<ChatHistory> missing = filterExisting(chunk);
+                for (ChatHistory row : missing) {
+                    try {
+                        chatHistoryMapper.insert(row);
+                    } catch (Exception e) {
+                        log.error("对话历史写入失败，转存到失败文件，id: {}, appId: {}", row.getId(), row.getAppId(), e);
+                        writeFailed(row);
+                    }
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("批量写入对话历史失败，共 {} 条: {}", rows.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 失效这批消息所属应用的热点窗口（入库之后调用）
+     */
+    private void evictHotCache(List<ChatHistory> rows) {
+        rows.stream().map(ChatHistory::getAppId).distinct().forEach(chatHistoryHotCache::evict);
+    }
+
+    /**
+     * 过滤掉已经入库的行
+     */
+    private List<ChatHistory> filterExisting(List<ChatHistory> rows) {
+        List<Long> ids = rows.stream().map(ChatHistory::getId).toList();
+        Set<Long> existingIds = chatHistoryMapper.selectListByQuery(QueryWrapper.create()
+                        .select("id")
+                        .in("id", ids))
+                .stream()
+                .map(ChatHistory::getId)
+                .collect(Collectors.toSet());
+        return rows.stream().filter(row -> !existingIds.contains(row.getId())).toList();
+    }
+
+    /**
+     * 校验溢写目录不在任何 file: 静态资源目录下，避免对话内容通过静态资源接口泄露
+     */
+    private void checkNotServed(Path dir) {
+        for (String location : webProperties.getResources().getStaticLocations()) {
+            if (!location.startsWith(FILE_URL_PREFIX)) {
+                continue;
+            }
+            Path servedDir = Paths.get(location.substring(FILE_URL_PREFIX.length())).toAbsolutePath().normalize();
+            if (dir.startsWith(servedDir)) {
+                throw new IllegalStateException("对话历史溢写目录 " + dir + " 位于静态资源目录 " + location
+                        + " 下，会被对外暴露，请修改 chat-history.write-behind.spill-dir");
+            }
+        }
+    }
+
+    /**
+     * 把上次写入失败的行改名为普通溢写文件，随溢写文件一起重放
+     * 重放时仍失败的行会写入新的失败文件
+     */
+    private void requeueFailedRows() {
+        Path failedFile = failedFilePath();
+        if (!Files.exists(failedFile)) {
+            return;
+        }
+        Path segment = spillDir.resolve(System.currentTimeMillis() + "_failed" + SEGMENT_SUFFIX);
+        try {
+            Files.move(failedFile, segment, StandardCopyOption.ATOMIC_MOVE);
+            log.info("重放上次写入失败的对话历史: {}", segment.getFileName());
+        } catch (IOException e) {
+            log.error("重放对话历史失败文件失败，请人工处理: {}", failedFile, e);
+        }
+    }
+
+    /**
+     * 重放溢写文件（启动时执行）
+     */
+    private void replaySpilledSegments() {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spillDir, "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        } catch (IOException e) {
+            log.error("读取对话历史溢写目录失败", e);
+            return;
+        }
+        segments.sort(null);
+        for (Path segment : segments) {
+            List<ChatHistory> rows = readSegment(segment);
+            if (rows.isEmpty() || insertInBatches(rows, true)) {
+                log.info("重放对话历史溢写文件 {}，共 {} 条", segment.getFileName(), rows.size());
+                deleteQuietly(segment);
+                evictHotCache(rows);
+            } else {
+                // 数据库暂不可用，保留文件，下次启动再重放
+                log.warn("重放对话历史溢写文件失败，保留文件: {}", segment);
+            }
+        }
+    }
+
+    private List<ChatHistory> readSegment(Path segment) {
+        List<ChatHistory> rows = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    ChatHistory row = fromSpillRecord(JSONUtil.parseObj(line));
+                    if (seenIds.add(row.getId())) {
+                        rows.add(row);
+                    }
+                } catch (Exception e) {
+                    // 崩溃时最后一行可能只写了一半
+                    log.warn("跳过无法解析的溢写记录: {}", segment.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.error("读取对话历史溢写文件失败: {}", segment, e);
+        }
+        return rows;
+    }
+
+    /**
+     * 追加到当前溢写文件（持有 lock 时调用）
+     */
+    private void appendToSegment(ChatHistory chatHistory) throws IOException {
+        if (currentSegment == null) {
+            currentSegmentPath = spillDir.resolve(System.currentTimeMillis() + "_" + IdUtil.fastSimpleUUID() + SEGMENT_SUFFIX);
+            currentSegment = FileChannel.open(currentSegmentPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((toSpillRecord(chatHistory) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            currentSegment.write(buffer);
+        }
+        if (chatHistoryWriteConfig.isSpillFsync()) {
+            currentSegment.force(false);
+        }
+    }
+
+    /**
+     * 关闭当前溢写文件并加入待删除列表（持有 lock 时调用）
+     */
+    private void sealCurrentSegment() {
+        if (currentSegment == null) {
+            return;
+        }
+        try {
+            currentSegment.close();
+        } catch (IOException e) {
+            log.warn("关闭对话历史溢写文件失败: {}", currentSegmentPath, e);
+        }
+        sealedSegments.add(currentSegmentPath);
+        currentSegment = null;
+        currentSegmentPath = null;
+    }
+
+    private void writeFailed(ChatHistory row) {
+        try {
+            Files.writeString(failedFilePath(), toSpillRecord(row) + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("写入对话历史失败文件失败，消息丢失，id: {}", row.getId(), e);
+        }
+    }
+
+    private Path failedFilePath() {
+        return spillDir.resolve("chat_history" + FAILED_SUFFIX);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除对话历史溢写文件失败: {}", path, e);
+        }
+    }
+
+    private static String toSpillRecord(ChatHistory chatHistory) {
+        JSONObject record = new JSONObject();
+        record.set("id", chatHistory.getId());
+        record.set("appId", chatHistory.getAppId());
+        record.set("userId", chatHistory.getUserId());
+        record.set("messageType", chatHistory.getMessageType());
+        record.set("message", chatHistory.getMessage());
+        record.set("parentId", chatHistory.getParentId());
+        record.set("createTime", chatHistory.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        return record.toString();
+    }
+
+    private static ChatHistory fromSpillRecord(JSONObject record) {
+        LocalDateTime createTime = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(record.getLong("createTime")), ZoneId.systemDefault());
+        return ChatHistory.builder()
+                .id(record.getLong("id"))
+                .appId(record.getLong("appId"))
+                .userId(record.getLong("userId"))
+                .messageType(record.getStr("messageType"))
+                .message(record.getStr("message"))
+                .parentId(record.getLong("parentId"))
+                .createTime(createTime)
+                .updateTime(LocalDateTime.now())
+                .isDelete(0)
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (writerExecutor == null) {
+            return;
+        }
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(AWAIT_FLUSH_SECONDS, TimeUnit.SECONDS)) {
+                writerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 停止前把剩余消息写入数据库；失败时溢写文件保留，下次启动重放
+        flush();
+        synchronized (lock) {
+            sealCurrentSegment();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.zw.zwaicodemother.manager;
 
 import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.ObjectMetadata;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
 import com.zw.zwaicodemother.config.CosClientConfig;
@@ -9,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.InputStream;
 
 /**
  * COS对象存储管理器
@@ -35,6 +37,23 @@ public class CosManager {
         PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
         return cosClient.putObject(putObjectRequest);
     }
+    /**
+     * 上传对象（流式）
+     *
+     * @param key           唯一键
+     * @param inputStream   输入流
+     * @param contentLength 内容长度（已知长度时 SDK 无需先把流缓存到内存）
+     * @param contentType   内容类型
+     * @return 上传结果
+     */
+    public PutObjectResult putObject(String key, InputStream inputStream, long contentLength, String contentType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        objectMetadata.setContentType(contentType);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, objectMetadata);
+        return cosClient.putObject(putObjectRequest);
+    }
+
     /**
      * 上传文件到 COS 并返回访问 URL
      *
@@ -56,4 +75,25 @@ public class CosManager {
         }
     }
 
+    /**
+     * 上传流到 COS 并返回访问 URL
+     *
+     * @param key           COS对象键（完整路径）
+     * @param inputStream   输入流
+     * @param contentLength 内容长度
+     * @param contentType   内容类型
+     * @return 文件的访问URL，失败返回null
+     */
+    public String uploadStream(String key, InputStream inputStream, long contentLength, String contentType) {
+        PutObjectResult putObjectResult = putObject(key, inputStream, contentLength, contentType);
+        if (putObjectResult != null) {
+            String url = String.format("%s%s", cosClientConfig.getHost(), key);
+            log.info("流上传cos成功：{} 字节 -》{}", contentLength, url);
+            return url;
+        } else {
+            log.error("流上传COS失败:{}，返回结果为空", key);
+            return null;
+        }
+    }
+
 }
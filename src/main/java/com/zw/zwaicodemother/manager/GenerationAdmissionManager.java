@@ -0,0 +1,260 @@
+package com.zw.zwaicodemother.manager;
+
+import com.zw.zwaicodemother.config.GenerationAdmissionConfig;
+import com.zw.zwaicodemother.exception.BusinessException;
+import com.zw.zwaicodemother.exception.ErrorCode;
+import com.zw.zwaicodemother.exception.ThrowUtils;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 代码生成准入管理器
+ * 功能：
+ * 1. 每个应用同一时刻只允许一个生成任务（含排队中），避免多个流并发写同一个输出目录
+ * 2. 全局限制同时调用大模型的生成任务数量
+ * 3. 超出并发上限的任务进入有界 FIFO 队列，排队位置变化时通过回调推送给客户端
+ * 4. 队列已满时直接拒绝
+ */
+@Component
+@Slf4j
+public class GenerationAdmissionManager {
+
+    @Resource
+    private GenerationAdmissionConfig generationAdmissionConfig;
+
+    /**
+     * 正在生成（含排队）的应用 ID
+     */
+    private final Set<Long> generatingAppIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 保护 runningCount 和 waitQueue
+     */
+    private final Object lock = new Object();
+
+    /**
+     * 正在调用模型的任务数
+     */
+    private int runningCount;
+
+    /**
+     * 等待队列
+     */
+    private final Deque<GenerationTicket> waitQueue = new ArrayDeque<>();
+
+    /**
+     * 申请生成准入
+     * 应用槽位在订阅时才占用，生成流提供者也在订阅时调用，未被订阅的流不会泄漏槽位；
+     * 重复请求、队列已满都以流的异常结束，生成流在拿到全局许可后才会被订阅
+     *
+     * @param appId               应用 ID
+     * @param generationSupplier  生成流提供者（在占用槽位后立即调用，可在其中做参数校验和记录用户消息）
+     * @param queuePositionMapper 排队位置（从 1 开始）到流元素的转换
+     * @return 排队事件 + 生成内容的流
+     */
+    public <T> Flux<T> admit(Long appId, Supplier<Flux<T>> generationSupplier, IntFunction<T> queuePositionMapper) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        return Flux.create(sink -> {
+            if (!generatingAppIds.add(appId)) {
+                sink.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST, "该应用正在生成代码，请等待当前生成完成"));
+                return;
+            }
+            Flux<T> generation;
+            try {
+                generation = generationSupplier.get();
+            } catch (RuntimeException e) {
+                generatingAppIds.remove(appId);
+                sink.error(e);
+                return;
+            }
+            GenerationTicket ticket = new GenerationTicket(appId,
+                    () -> subscribeWithDemand(generation, sink),
+                    position -> sink.next(queuePositionMapper.apply(position)));
+            // 完成、异常、客户端断开都会走到这里（注册前已取消时会立即执行）
+            sink.onDispose(() -> {
+                release(ticket);
+                generatingAppIds.remove(appId);
+            });
+            if (!submit(ticket)) {
+                sink.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST, "当前生成任务过多，请稍后再试"));
+            }
+        });
+    }
+
+    /**
+     * 订阅生成流，并把下游的需求原样转发给生成流，避免生成内容在 sink 中无限堆积
+     */
+    private static <T> Disposable subscribeWithDemand(Flux<T> generation, FluxSink<T> sink) {
+        BaseSubscriber<T> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // 由 sink.onRequest 按需请求
+            }
+
+            @Override
+            protected void hookOnNext(T value) {
+                sink.next(value);
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                sink.complete();
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                sink.error(throwable);
+            }
+        };
+        generation.subscribe(subscriber);
+        // 注册时会先补发已有的需求
+        sink.onRequest(subscriber::request);
+        return subscriber;
+    }
+
+    /**
+     * 获取正在调用模型的任务数
+     */
+    public int getRunningCount() {
+        synchronized (lock) {
+            return runningCount;
+        }
+    }
+
+    /**
+     * 获取排队中的任务数
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            return waitQueue.size();
+        }
+    }
+
+    /**
+     * 提交任务：有空闲许可则立即开始，否则进入等待队列；任务已被释放时什么也不做
+     *
+     * @return 队列已满时返回 false
+     */
+    private boolean submit(GenerationTicket ticket) {
+        int position;
+        synchronized (lock) {
+            if (ticket.state == TicketState.FINISHED) {
+                // 注册 onDispose 前客户端已断开，释放逻辑已执行，不能再占用许可
+                return true;
+            }
+            if (runningCount < generationAdmissionConfig.getMaxConcurrentGenerations() && waitQueue.isEmpty()) {
+                runningCount++;
+                ticket.state = TicketState.RUNNING;
+                position = 0;
+            } else if (waitQueue.size() >= generationAdmissionConfig.getMaxQueueSize()) {
+                log.warn("生成任务队列已满，拒绝应用 {} 的生成请求", ticket.appId);
+                return false;
+            } else {
+                waitQueue.addLast(ticket);
+                position = waitQueue.size();
+            }
+        }
+        if (position == 0) {
+            ticket.start();
+        } else {
+            log.info("应用 {} 的生成任务进入排队，位置: {}", ticket.appId, position);
+            ticket.positionListener.accept(position);
+        }
+        return true;
+    }
+
+    /**
+     * 释放任务：排队中的移出队列，运行中的归还许可并唤醒队首任务
+     */
+    private void release(GenerationTicket ticket) {
+        GenerationTicket next = null;
+        List<GenerationTicket> waitingTickets;
+        synchronized (lock) {
+            TicketState previousState = ticket.state;
+            ticket.state = TicketState.FINISHED;
+            if (previousState == TicketState.WAITING) {
+                waitQueue.remove(ticket);
+            } else if (previousState == TicketState.RUNNING) {
+                runningCount--;
+                next = waitQueue.pollFirst();
+                if (next != null) {
+                    runningCount++;
+                    next.state = TicketState.RUNNING;
+                }
+            } else {
+                return;
+            }
+            waitingTickets = new ArrayList<>(waitQueue);
+        }
+        // 客户端断开时取消上游模型调用
+        ticket.dispose();
+        if (next != null) {
+            log.info("应用 {} 的生成任务结束排队，开始生成", next.appId);
+            next.start();
+        }
+        // 通知剩余排队任务的新位置
+        for (int i = 0; i < waitingTickets.size(); i++) {
+            waitingTickets.get(i).positionListener.accept(i + 1);
+        }
+    }
+
+    private enum TicketState {
+        WAITING, RUNNING, FINISHED
+    }
+
+    /**
+     * 生成任务票据
+     */
+    private static class GenerationTicket {
+
+        private final Long appId;
+
+        private final Supplier<Disposable> starter;
+
+        private final IntConsumer positionListener;
+
+        private volatile TicketState state = TicketState.WAITING;
+
+        private volatile Disposable subscription;
+
+        private GenerationTicket(Long appId, Supplier<Disposable> starter, IntConsumer positionListener) {
+            this.appId = appId;
+            this.starter = starter;
+            this.positionListener = positionListener;
+        }
+
+        /**
+         * 订阅生成流，开始调用模型
+         */
+        private void start() {
+            subscription = starter.get();
+            // 启动过程中任务已被释放（客户端断开），立即取消
+            if (state == TicketState.FINISHED) {
+                subscription.dispose();
+            }
+        }
+
+        private void dispose() {
+            Disposable current = subscription;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.zw.zwaicodemother.manager;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zw.zwaicodemother.config.LoginUserCacheConfig;
+import com.zw.zwaicodemother.model.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 登录用户本地缓存（带版本号）
+ * 1. 每个用户的版本号保存在 Redis（user:ver:{id}），用户更新、删除时 INCR，所有节点共用
+ * 2. 缓存项记录加载开始时的版本号，每次读取都与 Redis 中的版本号比较，不一致即视为失效；
+ *    加载过程中发生的变更会让这次加载结果直接作废，不会把旧角色写回缓存
+ * 3. Redis 不可用时不读写缓存，直接查询数据库
+ */
+@Component
+@Slf4j
+public class LoginUserCacheManager {
+
+    private static final String VERSION_KEY_PREFIX = "user:ver:";
+
+    @Resource
+    private LoginUserCacheConfig loginUserCacheConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private Cache<Long, CachedUser> localCache;
+
+    /**
+     * 缓存项
+     *
+     * @param user    用户
+     * @param version 加载开始时的版本号
+     */
+    private record CachedUser(User user, long version) {
+    }
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(loginUserCacheConfig.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(loginUserCacheConfig.getTtlSeconds()))
+                .build();
+    }
+
+    /**
+     * 读取用户，缓存不存在或版本号已变化时调用 loader 查询数据库
+     *
+     * @param userId 用户 ID
+     * @param loader 数据库查询
+     * @return 用户副本，不存在时返回 null（不缓存）
+     */
+    public User get(Long userId, Function<Long, User> loader) {
+        if (!loginUserCacheConfig.isEnabled() || userId == null) {
+            return loader.apply(userId);
+        }
+        Long version = readVersion(userId);
+        if (version == null) {
+            return loader.apply(userId);
+        }
+        CachedUser cached = localCache.getIfPresent(userId);
+        if (cached != null && cached.version() == version) {
+            return BeanUtil.copyProperties(cached.user(), User.class);
+        }
+        User user = loader.apply(userId);
+        if (user != null) {
+            localCache.put(userId, new CachedUser(user, version));
+            return BeanUtil.copyProperties(user, User.class);
+        }
+        return null;
+    }
+
+    /**
+     * 用户更新、删除后调用，递增 Redis 中的版本号，使所有节点的缓存失效
+     */
+    public void evict(Long userId) {
+        if (!loginUserCacheConfig.isEnabled() || userId == null) {
+            return;
+        }
+        localCache.invalidate(userId);
+        String key = VERSION_KEY_PREFIX + userId;
+        try {
+            stringRedisTemplate.opsForValue().increment(key);
+            stringRedisTemplate.expire(key, Duration.ofSeconds(loginUserCacheConfig.getVersionTtlSeconds()));
+        } catch (Exception e) {
+            // 版本号未递增时其他节点依赖本地缓存过期时间兜底
+            log.error("递增用户缓存版本号失败，userId: {}", userId, e);
+        }
+    }
+
+    /**
+     * 读取 Redis 中的版本号，不存在时为 0，Redis 不可用时返回 null
+     */
+    private Long readVersion(Long userId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+            return StrUtil.isNumeric(value) ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("读取用户缓存版本号失败，直接查询数据库，userId: {}, 原因: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,28 +1,38 @@
 package com.zw.zwaicodemother.manager;
 
+import com.zw.zwaicodemother.common.ScreenshotTimings;
 import com.zw.zwaicodemother.common.WebScreenshotUtils;
+import com.zw.zwaicodemother.config.ScreenshotConfig;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 截图管理器
  * 功能：
- * 1. 使用任务队列机制，将截图请求按顺序排队处理
- * 2. 通过单线程执行器确保所有截图任务串行执行
- * 3. 采用CompletableFuture提交任务，支持异步返回结果
- * 4. 提供任务统计和监控功能
- * 5. 线程安全的任务管理机制
+ * 1. 使用任务队列机制，将截图请求排队处理
+ * 2. 通过固定大小的执行器并行执行截图，并行度等于浏览器池大小
+ * 3. 每个任务从 WebDriverPool 独占借用一个浏览器，互不干扰
+ * 4. 单个任务超时后强制关闭其浏览器，避免卡死的页面长期占用工作线程
+ * 5. 采用CompletableFuture提交任务，支持异步返回结果
+ * 6. 提供任务统计和监控功能
  * 属性：
- * - screenshotExecutor: 单线程执行器，确保截图任务串行执行
+ * - screenshotExecutor: 截图执行器，线程数等于浏览器池大小
+ * - timeoutScheduler: 任务超时调度器
  * - taskCounter: 任务计数器，用于生成唯一任务ID
  * - completedTasks: 已完成任务计数
  * - failedTasks: 失败任务计数
@@ -32,25 +42,34 @@ import java.util.concurrent.atomic.AtomicLong;
  * - init(): 初始化方法
  * - destroy(): 销毁方法
  * 注意事项：
- * - 使用单线程执行器确保WebDriver线程安全
- * - 所有截图任务按提交顺序串行执行
+ * - WebDriver 不是线程安全的，同一浏览器同一时刻只会被一个任务使用
  * - 支持异步调用，不阻塞业务线程
  * - 应用关闭时自动清理资源
  * 
  * @author ZW
- * @version 1.0
+ * @version 1.1
  * @since 2025-09-16
  */
 @Component
 @Slf4j
 public class ScreenshotManager {
 
+    @Resource
+    private WebDriverPool webDriverPool;
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
     /**
-     * 单线程执行器，确保所有截图任务串行执行
-     * 使用newSingleThreadExecutor()创建，保证线程安全
+     * 截图执行器，线程数等于浏览器池大小
      */
     private ExecutorService screenshotExecutor;
 
+    /**
+     * 任务超时调度器，超时后强制作废浏览器
+     */
+    private ScheduledExecutorService timeoutScheduler;
+
     /**
      * 任务计数器，用于生成唯一的任务ID
      * 使用AtomicLong确保线程安全的递增
@@ -69,29 +88,48 @@ public class ScreenshotManager {
      */
     private final AtomicInteger failedTasks = new AtomicInteger(0);
 
+    /**
+     * 成功截图各阶段累计耗时，用于计算平均值
+     */
+    private final LongAdder totalNavigateMillis = new LongAdder();
+    private final LongAdder totalReadyMillis = new LongAdder();
+    private final LongAdder totalCaptureMillis = new LongAdder();
+    private final LongAdder totalCompressMillis = new LongAdder();
+
+    /**
+     * 未在截止时间内就绪的截图次数
+     */
+    private final AtomicInteger notReadyTasks = new AtomicInteger(0);
+
     /**
      * 初始化截图管理器
      * 功能：
-     * 1. 创建单线程执行器
-     * 2. 配置线程名称便于调试
-     * 3. 记录初始化日志
+     * 1. 创建与浏览器池大小一致的执行器
+     * 2. 创建任务超时调度器
+     * 3. 配置线程名称便于调试
      * 执行时机：Spring容器初始化完成后自动调用
-     * 异常处理：
-     * - 捕获初始化异常并记录日志
-     * - 初始化失败不影响应用启动
+     * 注意：浏览器在首次截图时才会启动
      */
     @PostConstruct
     public void init() {
         try {
-            // 创建单线程执行器，确保截图任务串行执行
-            screenshotExecutor = Executors.newSingleThreadExecutor(r -> {
+            int parallelism = screenshotConfig.getPoolSize();
+            AtomicInteger threadIndex = new AtomicInteger();
+            screenshotExecutor = Executors.newFixedThreadPool(parallelism, r -> {
                 Thread thread = new Thread(r);
-                thread.setName("screenshot-worker-thread");
+                thread.setName("screenshot-worker-thread-" + threadIndex.incrementAndGet());
                 thread.setDaemon(true); // 设置为守护线程
                 return thread;
             });
-            
-            log.info("截图管理器初始化成功，单线程执行器已创建");
+            timeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r);
+                thread.setName("screenshot-timeout-thread");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            log.info("截图管理器初始化成功，并行度: {}，单任务超时: {}s",
+                    parallelism, screenshotConfig.getTaskTimeoutSeconds());
             
         } catch (Exception e) {
             log.error("截图管理器初始化失败", e);
@@ -104,7 +142,7 @@ public class ScreenshotManager {
      * <p>
      * 功能：
      * 1. 将截图请求提交到任务队列
-     * 2. 使用单线程执行器串行处理任务
+     * 2. 从浏览器池借用浏览器并执行截图，完成后归还
      * 3. 返回CompletableFuture支持异步调用
      * 4. 自动统计任务执行情况
      * <p>
@@ -112,21 +150,16 @@ public class ScreenshotManager {
      * @param webUrl 要截图的网页URL，不能为空
      * <p>
      * 返回值：
-     * @return CompletableFuture<String> 异步返回截图文件路径
-     *         - 成功：返回压缩后的截图文件完整路径
-     *         - 失败：返回null
+     * @return CompletableFuture<byte[]> 异步返回截图内容（全程在内存中处理，不落盘）
+     *         - 成功：返回压缩后的 JPEG 内容
+     *         - 失败或超时：返回null
      * <p>
      * 异常处理：
-     * - 参数验证异常：立即返回失败的CompletableFuture
+     * - 参数验证异常：立即返回结果为null的CompletableFuture
      * - 执行异常：在Future中处理，不影响其他任务
-     * - 线程池异常：记录日志并返回失败结果
-     * <p>
-     * 线程安全：
-     * - 使用单线程执行器确保WebDriver线程安全
-     * - 任务ID生成使用原子操作
-     * - 统计计数器使用原子操作
+     * - 任务超时：强制关闭该任务使用的浏览器，浏览器池会重新创建
      */
-    public CompletableFuture<String> takeScreenshotAsync(String webUrl) {
+    public CompletableFuture<byte[]> takeScreenshotAsync(String webUrl) {
         // 生成唯一任务ID
         long taskId = taskCounter.incrementAndGet();
         
@@ -146,44 +179,59 @@ public class ScreenshotManager {
         
         log.info("任务[{}] 提交截图请求到队列: {}", taskId, webUrl);
         
-        // 使用CompletableFuture.supplyAsync提交任务到单线程执行器
         return CompletableFuture.supplyAsync(() -> {
             long startTime = System.currentTimeMillis();
-            
+            WebDriverPool.PooledWebDriver pooled = null;
+            ScheduledFuture<?> timeoutFuture = null;
+            byte[] screenshotBytes = null;
             try {
-                log.info("任务[{}] 开始执行截图: {}", taskId, webUrl);
-                
-                // 调用WebScreenshotUtils执行实际截图操作
-                String screenshotPath = WebScreenshotUtils.saveWebPageScreenshot(webUrl);
-                
-                long executionTime = System.currentTimeMillis() - startTime;
-                
-                if (screenshotPath != null) {
-                    // 截图成功
-                    completedTasks.incrementAndGet();
-                    log.info("任务[{}] 截图执行成功: {} -> {}, 耗时: {}ms", 
-                        taskId, webUrl, screenshotPath, executionTime);
-                    return screenshotPath;
-                } else {
-                    // 截图失败
-                    failedTasks.incrementAndGet();
-                    log.error("任务[{}] 截图执行失败: {}, 耗时: {}ms", 
-                        taskId, webUrl, executionTime);
-                    return null;
+                pooled = webDriverPool.borrow(screenshotConfig.getTaskTimeoutSeconds());
+                WebDriverPool.PooledWebDriver borrowed = pooled;
+                // 超时后强制关闭浏览器，打断阻塞中的页面加载
+                timeoutFuture = timeoutScheduler.schedule(() -> {
+                    log.error("任务[{}] 截图超时（{}s）: {}", taskId, screenshotConfig.getTaskTimeoutSeconds(), webUrl);
+                    webDriverPool.invalidate(borrowed);
+                }, screenshotConfig.getTaskTimeoutSeconds(), TimeUnit.SECONDS);
+
+                log.info("任务[{}] 开始执行截图: {}，浏览器[{}]", taskId, webUrl, pooled.getId());
+                ScreenshotTimings timings = new ScreenshotTimings();
+                screenshotBytes = WebScreenshotUtils.captureWebPageScreenshot(pooled.getWebDriver(), webUrl,
+                        Duration.ofMillis(screenshotConfig.getReadyTimeoutMillis()),
+                        screenshotConfig.getCoverMaxWidth(), timings);
+                if (screenshotBytes != null) {
+                    recordTimings(timings);
+                    if (screenshotConfig.isDebugSaveLocal()) {
+                        WebScreenshotUtils.saveToTempFile(screenshotBytes);
+                    }
                 }
-                
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("任务[{}] 等待浏览器时被中断: {}", taskId, webUrl);
             } catch (Exception e) {
-                // 异常处理
-                long executionTime = System.currentTimeMillis() - startTime;
+                log.error("任务[{}] 截图执行异常: {}, 异常类型: {}, 异常消息: {}",
+                        taskId, webUrl, e.getClass().getSimpleName(), e.getMessage(), e);
+            } finally {
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+                if (pooled != null) {
+                    webDriverPool.giveBack(pooled, screenshotBytes != null);
+                }
+            }
+
+            long executionTime = System.currentTimeMillis() - startTime;
+            if (screenshotBytes != null) {
+                // 截图成功
+                completedTasks.incrementAndGet();
+                log.info("任务[{}] 截图执行成功: {} -> {} 字节, 耗时: {}ms",
+                    taskId, webUrl, screenshotBytes.length, executionTime);
+            } else {
+                // 截图失败
                 failedTasks.incrementAndGet();
-                
-                log.error("任务[{}] 截图执行异常: {}, 耗时: {}ms", 
-                    taskId, webUrl, executionTime, e);
-                log.error("任务[{}] 异常详情 - 异常类型: {}, 异常消息: {}", 
-                    taskId, e.getClass().getSimpleName(), e.getMessage());
-                
-                return null;
+                log.error("任务[{}] 截图执行失败: {}, 耗时: {}ms",
+                    taskId, webUrl, executionTime);
             }
+            return screenshotBytes;
             
         }, screenshotExecutor);
     }
@@ -211,6 +259,37 @@ public class ScreenshotManager {
         return new TaskStatistics(totalTasks, completed, failed);
     }
 
+    /**
+     * 获取成功截图的各阶段平均耗时
+     *
+     * @return PhaseStatistics 阶段耗时统计
+     */
+    public PhaseStatistics getPhaseStatistics() {
+        int completed = completedTasks.get();
+        if (completed == 0) {
+            return new PhaseStatistics(0, 0, 0, 0, notReadyTasks.get());
+        }
+        return new PhaseStatistics(
+                totalNavigateMillis.sum() / completed,
+                totalReadyMillis.sum() / completed,
+                totalCaptureMillis.sum() / completed,
+                totalCompressMillis.sum() / completed,
+                notReadyTasks.get());
+    }
+
+    /**
+     * 累计单次截图的阶段耗时
+     */
+    private void recordTimings(ScreenshotTimings timings) {
+        totalNavigateMillis.add(timings.getNavigateMillis());
+        totalReadyMillis.add(timings.getReadyMillis());
+        totalCaptureMillis.add(timings.getCaptureMillis());
+        totalCompressMillis.add(timings.getCompressMillis());
+        if (!timings.isReady()) {
+            notReadyTasks.incrementAndGet();
+        }
+    }
+
     /**
      * 销毁截图管理器
      * <p>
@@ -218,7 +297,7 @@ public class ScreenshotManager {
      * 1. 优雅关闭线程池
      * 2. 等待正在执行的任务完成
      * 3. 记录最终统计信息
-     * 4. 清理资源
+     * 4. 清理资源（浏览器由 WebDriverPool 负责关闭）
      * <p>
      * 执行时机：Spring容器销毁前自动调用
      * <p>
@@ -239,6 +318,7 @@ public class ScreenshotManager {
                     finalStats.completedTasks(),
                     finalStats.failedTasks(),
                     finalStats.getSuccessRate());
+                log.info("截图阶段平均耗时 - {}", getPhaseStatistics());
                 
                 // 优雅关闭线程池
                 screenshotExecutor.shutdown();
@@ -249,6 +329,7 @@ public class ScreenshotManager {
                     screenshotExecutor.shutdownNow();
                 }
                 
+                timeoutScheduler.shutdownNow();
                 log.info("截图管理器已成功关闭");
             }
             
@@ -259,6 +340,9 @@ public class ScreenshotManager {
             if (screenshotExecutor != null) {
                 screenshotExecutor.shutdownNow();
             }
+            if (timeoutScheduler != null) {
+                timeoutScheduler.shutdownNow();
+            }
         }
     }
 
@@ -324,4 +408,17 @@ public class ScreenshotManager {
                         totalTasks, completedTasks, failedTasks, getSuccessRate(), getFailureRate());
             }
         }
-}
\ No newline at end of file
+
+    /**
+     * 截图阶段耗时统计（成功任务的平均值，毫秒）
+     *
+     * @param avgNavigateMillis 平均打开页面耗时
+     * @param avgReadyMillis    平均等待就绪耗时
+     * @param avgCaptureMillis  平均截图耗时
+     * @param avgCompressMillis 平均压缩耗时
+     * @param notReadyTasks     超过截止时间仍未就绪的次数
+     */
+    public record PhaseStatistics(long avgNavigateMillis, long avgReadyMillis, long avgCaptureMillis,
+                                  long avgCompressMillis, int notReadyTasks) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.zw.zwaicodemother.manager;
+
+import com.zw.zwaicodemother.common.WebScreenshotUtils;
+import com.zw.zwaicodemother.config.ScreenshotConfig;
+import com.zw.zwaicodemother.exception.BusinessException;
+import com.zw.zwaicodemother.exception.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 浏览器驱动池
+ * 功能：
+ * 1. 懒加载：首次借用时才启动浏览器，应用启动不依赖 Chrome
+ * 2. 借用时做健康检查，浏览器崩溃后自动重建
+ * 3. 单个浏览器截图次数达到上限后关闭重建
+ * 4. 支持强制作废（任务超时时由其他线程关闭浏览器，打断阻塞中的调用）
+ */
+@Component
+@Slf4j
+public class WebDriverPool {
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    /**
+     * 可借出的浏览器数量
+     */
+    private Semaphore permits;
+
+    /**
+     * 空闲浏览器（后进先出，优先复用热的实例）
+     */
+    private final ConcurrentLinkedDeque<PooledWebDriver> idleDrivers = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 全部存活的浏览器，用于关闭应用时统一释放
+     */
+    private final Set<PooledWebDriver> aliveDrivers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger createdCount = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(screenshotConfig.getPoolSize(), true);
+        log.info("浏览器池初始化完成，大小: {}", screenshotConfig.getPoolSize());
+    }
+
+    /**
+     * 借用浏览器
+     *
+     * @param timeoutSeconds 等待空闲浏览器的超时时间（秒）
+     * @return 独占的浏览器
+     */
+    public PooledWebDriver borrow(long timeoutSeconds) throws InterruptedException {
+        if (!permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待截图浏览器超时");
+        }
+        try {
+            PooledWebDriver pooled;
+            while ((pooled = idleDrivers.pollFirst()) != null) {
+                if (isHealthy(pooled)) {
+                    return pooled;
+                }
+                log.warn("浏览器[{}] 健康检查失败，重新创建", pooled.getId());
+                quit(pooled);
+            }
+            return create();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还浏览器
+     *
+     * @param pooled  借出的浏览器
+     * @param success 本次截图是否成功，失败时检查浏览器是否仍然可用
+     */
+    public void giveBack(PooledWebDriver pooled, boolean success) {
+        try {
+            int pageCount = pooled.pageCount.incrementAndGet();
+            if (pooled.invalid) {
+                quit(pooled);
+            } else if (pageCount >= screenshotConfig.getMaxPagesPerDriver()) {
+                log.info("浏览器[{}] 已截图 {} 次，关闭重建", pooled.getId(), pageCount);
+                quit(pooled);
+            } else if (!success && !isHealthy(pooled)) {
+                log.warn("浏览器[{}] 截图失败且不可用，关闭重建", pooled.getId());
+                quit(pooled);
+            } else {
+                idleDrivers.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 强制作废浏览器（可由其他线程调用），正在执行的浏览器操作会因连接关闭而失败
+     */
+    public void invalidate(PooledWebDriver pooled) {
+        pooled.invalid = true;
+        log.warn("浏览器[{}] 被强制作废", pooled.getId());
+        quit(pooled);
+    }
+
+    /**
+     * 获取存活的浏览器数量
+     */
+    public int getAliveCount() {
+        return aliveDrivers.size();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        log.info("关闭浏览器池，存活浏览器: {}", aliveDrivers.size());
+        idleDrivers.clear();
+        aliveDrivers.forEach(this::quit);
+    }
+
+    private PooledWebDriver create() {
+        WebDriver webDriver = WebScreenshotUtils.createChromeDriver(
+                screenshotConfig.getWindowWidth(), screenshotConfig.getWindowHeight());
+        PooledWebDriver pooled = new PooledWebDriver(createdCount.incrementAndGet(), webDriver);
+        aliveDrivers.add(pooled);
+        log.info("浏览器[{}] 创建成功，当前存活: {}", pooled.getId(), aliveDrivers.size());
+        return pooled;
+    }
+
+    private boolean isHealthy(PooledWebDriver pooled) {
+        if (pooled.invalid) {
+            return false;
+        }
+        try {
+            pooled.getWebDriver().getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void quit(PooledWebDriver pooled) {
+        if (!aliveDrivers.remove(pooled)) {
+            return;
+        }
+        try {
+            pooled.getWebDriver().quit();
+        } catch (Exception e) {
+            log.warn("关闭浏览器[{}] 失败: {}", pooled.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 池化的浏览器
+     */
+    public static class PooledWebDriver {
+
+        private final int id;
+
+        private final WebDriver webDriver;
+
+        private final AtomicInteger pageCount = new AtomicInteger();
+
+        private volatile boolean invalid;
+
+        private PooledWebDriver(int id, WebDriver webDriver) {
+            this.id = id;
+            this.webDriver = webDriver;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public WebDriver getWebDriver() {
+            return webDriver;
+        }
+    }
+}
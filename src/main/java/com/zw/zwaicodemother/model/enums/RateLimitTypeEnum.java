@@ -0,0 +1,43 @@
+package com.zw.zwaicodemother.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 限流维度枚举
+ *
+ * @author ZW
+ */
+@Getter
+public enum RateLimitTypeEnum {
+    USER("按用户", "user"),
+    IP("按IP", "ip"),
+    GLOBAL("全局", "global");
+
+    private final String text;
+
+    private final String value;
+
+    RateLimitTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的value
+     * @return 枚举值
+     */
+    public static RateLimitTypeEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (RateLimitTypeEnum anEnum : RateLimitTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
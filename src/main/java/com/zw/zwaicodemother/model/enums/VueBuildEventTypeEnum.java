@@ -0,0 +1,52 @@
+package com.zw.zwaicodemother.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * Vue 项目构建事件类型枚举
+ *
+ * @author ZW
+ */
+@Getter
+public enum VueBuildEventTypeEnum {
+    QUEUED("排队中", "queued"),
+    INSTALLING("安装依赖", "installing"),
+    BUILDING("打包中", "building"),
+    DONE("构建成功", "done"),
+    FAILED("构建失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    VueBuildEventTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 是否为结束事件
+     */
+    public boolean isTerminal() {
+        return this == DONE || this == FAILED;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的value
+     * @return 枚举值
+     */
+    public static VueBuildEventTypeEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (VueBuildEventTypeEnum anEnum : VueBuildEventTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
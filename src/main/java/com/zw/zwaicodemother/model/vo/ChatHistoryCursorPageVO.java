@@ -0,0 +1,38 @@
+package com.zw.zwaicodemother.model.vo;
+
+import com.zw.zwaicodemother.model.entity.ChatHistory;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 对话历史游标分页结果
+ * 不统计总数，翻页时把 nextCreateTime、nextId 原样传回即可
+ */
+@Data
+public class ChatHistoryCursorPageVO implements Serializable {
+
+    /**
+     * 按创建时间降序排列的消息
+     */
+    private List<ChatHistory> records;
+
+    /**
+     * 是否还有更早的消息
+     */
+    private boolean hasMore;
+
+    /**
+     * 下一页游标：本页最后一条消息的创建时间
+     */
+    private LocalDateTime nextCreateTime;
+
+    /**
+     * 下一页游标：本页最后一条消息的 ID（同一秒内有多条消息时区分先后）
+     */
+    private Long nextId;
+
+    private static final long serialVersionUID = 1L;
+}
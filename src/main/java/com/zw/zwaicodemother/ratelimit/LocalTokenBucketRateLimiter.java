@@ -0,0 +1,102 @@
+package com.zw.zwaicodemother.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 单机令牌桶限流器
+ * 令牌按时间差惰性补充，不需要后台线程；长时间未访问的桶自动过期
+ * 多个桶同时获取时按 key 顺序加锁，先检查全部再一起扣减
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "local", matchIfMissing = true)
+public class LocalTokenBucketRateLimiter implements RateLimiter {
+
+    private final Cache<String, TokenBucket> bucketCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    @Override
+    public int tryAcquireAll(List<Bucket> buckets) {
+        List<BucketEntry> entries = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket spec = buckets.get(i);
+            TokenBucket bucket = bucketCache.get(spec.key(), k -> new TokenBucket(spec.capacity()));
+            double refillPerNano = (double) spec.rate() / Duration.ofSeconds(spec.rateInterval()).toNanos();
+            entries.add(new BucketEntry(spec, bucket, refillPerNano));
+        }
+        // 按 key 顺序加锁，多个请求同时获取相同的几个桶时不会死锁
+        List<BucketEntry> lockOrder = new ArrayList<>(entries);
+        lockOrder.sort(Comparator.comparing(entry -> entry.spec().key()));
+        return acquireLocked(entries, lockOrder, 0, System.nanoTime());
+    }
+
+    /**
+     * 逐个锁住所有桶后，先全部补充并检查，再一起扣减
+     */
+    private int acquireLocked(List<BucketEntry> entries, List<BucketEntry> lockOrder, int lockIndex, long nowNanos) {
+        if (lockIndex < lockOrder.size()) {
+            synchronized (lockOrder.get(lockIndex).bucket()) {
+                return acquireLocked(entries, lockOrder, lockIndex + 1, nowNanos);
+            }
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            BucketEntry entry = entries.get(i);
+            if (entry.bucket().refill(entry.spec().capacity(), entry.refillPerNano(), nowNanos) < 1) {
+                return i;
+            }
+        }
+        entries.forEach(entry -> entry.bucket().consume());
+        return -1;
+    }
+
+    private record BucketEntry(Bucket spec, TokenBucket bucket, double refillPerNano) {
+    }
+
+    /**
+     * 令牌桶
+     */
+    static class TokenBucket {
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        TokenBucket(int capacity) {
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume(int capacity, double refillPerNano, long nowNanos) {
+            if (refill(capacity, refillPerNano, nowNanos) >= 1) {
+                consume();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 按时间差补充令牌
+         *
+         * @return 补充后的令牌数
+         */
+        synchronized double refill(int capacity, double refillPerNano, long nowNanos) {
+            long elapsed = Math.max(0, nowNanos - lastRefillNanos);
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = Math.max(lastRefillNanos, nowNanos);
+            return tokens;
+        }
+
+        synchronized void consume() {
+            tokens -= 1;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.zw.zwaicodemother.ratelimit;
+
+import java.util.List;
+
+/**
+ * 令牌桶限流器
+ */
+public interface RateLimiter {
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key          限流 key
+     * @param capacity     桶容量
+     * @param rate         每个时间窗口补充的令牌数
+     * @param rateInterval 时间窗口（秒）
+     * @return 是否获取成功
+     */
+    default boolean tryAcquire(String key, int capacity, int rate, int rateInterval) {
+        return tryAcquireAll(List.of(new Bucket(key, capacity, rate, rateInterval))) < 0;
+    }
+
+    /**
+     * 同时从多个桶各获取一个令牌：所有桶都有令牌时才一起扣减，任一桶不足时都不扣减，
+     * 避免前面的桶被扣减、后面的桶拒绝时白白消耗额度
+     *
+     * @param buckets 令牌桶
+     * @return 全部获取成功返回 -1，否则返回第一个令牌不足的桶下标
+     */
+    int tryAcquireAll(List<Bucket> buckets);
+
+    /**
+     * 令牌桶参数
+     *
+     * @param key          限流 key
+     * @param capacity     桶容量
+     * @param rate         每个时间窗口补充的令牌数
+     * @param rateInterval 时间窗口（秒）
+     */
+    record Bucket(String key, int capacity, int rate, int rateInterval) {
+    }
+}
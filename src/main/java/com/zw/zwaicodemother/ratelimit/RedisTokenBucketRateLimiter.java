@@ -0,0 +1,60 @@
+package com.zw.zwaicodemother.ratelimit;
+
+import com.zw.zwaicodemother.config.RateLimitConfig;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分布式令牌桶限流器
+ * 通过 Lua 脚本在 Redis 中原子地完成补充和扣减，多实例共享同一个桶；
+ * 多个桶在同一个脚本中检查和扣减（集群部署时需保证这些 key 位于同一节点）
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "redis")
+@Slf4j
+public class RedisTokenBucketRateLimiter implements RateLimiter {
+
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        TOKEN_BUCKET_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/token_bucket.lua")));
+        TOKEN_BUCKET_SCRIPT.setResultType(Long.class);
+    }
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RateLimitConfig rateLimitConfig;
+
+    @Override
+    public int tryAcquireAll(List<Bucket> buckets) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            keys.add(bucket.key());
+            args.add(String.valueOf(bucket.capacity()));
+            args.add(String.valueOf((double) bucket.rate() / (bucket.rateInterval() * 1000L)));
+        }
+        try {
+            Long rejected = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, args.toArray());
+            if (rejected == null) {
+                return rateLimitConfig.isFailOpen() ? -1 : 0;
+            }
+            return rejected == 0L ? -1 : (int) (rejected - 1);
+        } catch (Exception e) {
+            log.warn("Redis 限流执行失败，key: {}，失败{}: {}", keys,
+                    rateLimitConfig.isFailOpen() ? "放行" : "拒绝", e.getMessage());
+            return rateLimitConfig.isFailOpen() ? -1 : 0;
+        }
+    }
+}
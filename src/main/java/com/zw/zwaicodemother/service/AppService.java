@@ -93,12 +93,13 @@ public interface AppService extends IService<App> {
     boolean removeById(Serializable id);
 
     /**
-     * 异步生成应用截图并更新封面
+     * 异步生成应用截图并更新封面（部署内容未变化时复用已有截图）
      *
-     * @param appId  应用ID
-     * @param appUrl 应用访问URL
+     * @param appId     应用ID
+     * @param appUrl        应用访问URL
+     * @param contentDigest 部署内容摘要（部署时已计算）
      */
-    void generateAppScreenshotAsync(Long appId, String appUrl);
+    void generateAppScreenshotAsync(Long appId, String appUrl, String contentDigest);
 
     /**
      * 创建应用
@@ -1,14 +1,16 @@
 package com.zw.zwaicodemother.service;
 
-import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
 import com.zw.zwaicodemother.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.zw.zwaicodemother.model.entity.ChatHistory;
 import com.zw.zwaicodemother.model.entity.User;
+import com.zw.zwaicodemother.model.vo.ChatHistoryCursorPageVO;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 对话历史服务层接口
@@ -44,17 +46,19 @@ public interface ChatHistoryService extends IService<ChatHistory> {
     boolean deleteByAppId(Long appId);
 
     /**
-     * 分页查询某 APP 的对话记录
+     * 游标分页查询某 APP 的对话记录（按创建时间降序，不统计总数）
      *
-     * @param appId
-     * @param pageSize
-     * @param lastCreateTime
-     * @param loginUser
-     * @return
+     * @param appId          应用 id
+     * @param pageSize       页面大小
+     * @param lastCreateTime 上一页返回的 nextCreateTime，首页为空
+     * @param lastId         上一页返回的 nextId，首页为空
+     * @param withMessage    是否返回消息内容，为 false 时只返回元数据
+     * @param loginUser      登录用户
+     * @return 游标分页结果
      */
-    Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize,
-                                               LocalDateTime lastCreateTime,
-                                               User loginUser);
+    ChatHistoryCursorPageVO listAppChatHistoryByCursor(Long appId, int pageSize,
+                                                       LocalDateTime lastCreateTime, Long lastId,
+                                                       boolean withMessage, User loginUser);
 
     /**
      * 构造查询条件
@@ -64,6 +68,15 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      */
     QueryWrapper getQueryWrapper(ChatHistoryQueryRequest chatHistoryQueryRequest);
 
+    /**
+     * 查询用于重建对话记忆的最近消息（不包含最新的一条用户消息，由本轮对话自行加入记忆）
+     *
+     * @param appId    应用 id
+     * @param maxCount 最多条数
+     * @return 按时间正序排列的记忆消息
+     */
+    List<ChatMessage> loadRecentChatMessages(Long appId, int maxCount);
+
     /**
      * 加载对话历史到内存
      *
@@ -6,4 +6,13 @@ package com.zw.zwaicodemother.service;
 public interface ScreenshotService  {
     String generateAndUploadScreenshot(String webUrl);
 
+    /**
+     * 获取网页截图，网页内容目录未变化时复用之前的截图
+     *
+     * @param webUrl        网页URL
+     * @param contentDigest 网页内容摘要（部署时计算，为空时不走缓存）
+     * @return 截图的对象存储URL
+     */
+    String getOrGenerateScreenshot(String webUrl, String contentDigest);
+
 }
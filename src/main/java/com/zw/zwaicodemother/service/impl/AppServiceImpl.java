@@ -12,11 +12,13 @@ import com.zw.zwaicodemother.ai.AiCodeGenTypeRoutingService;
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
 import com.zw.zwaicodemother.constant.AppConstant;
 import com.zw.zwaicodemother.core.AiCodeGeneratorFacade;
-import com.zw.zwaicodemother.core.builder.VueProjectBuilder;
+import com.zw.zwaicodemother.core.builder.VueBuildScheduler;
+import com.zw.zwaicodemother.core.deploy.IncrementalDeployer;
 import com.zw.zwaicodemother.core.handler.StreamHandlerExecutor;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
 import com.zw.zwaicodemother.exception.ThrowUtils;
+import com.zw.zwaicodemother.manager.AppCacheManager;
 import com.zw.zwaicodemother.mapper.AppMapper;
 import com.zw.zwaicodemother.model.dto.app.AppAddRequest;
 import com.zw.zwaicodemother.model.dto.app.AppQueryRequest;
@@ -59,14 +61,18 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private ChatHistoryService chatHistoryService;
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildScheduler vueBuildScheduler;
 
     @Resource
     private StreamHandlerExecutor streamHandlerExecutor;
     @Resource
     private ScreenshotService screenshotService;
     @Resource
+    private IncrementalDeployer incrementalDeployer;
+    @Resource
     private AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService;
+    @Resource
+    private AppCacheManager appCacheManager;
 
     public AppServiceImpl(UserServiceImpl userServiceImpl, AiCodeGeneratorFacade aiCodeGeneratorFacade) {
         this.userServiceImpl = userServiceImpl;
@@ -187,7 +193,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         CodeGenTypeEnum codeGenTypeEnum=CodeGenTypeEnum.getCodeGenTypeEnum(codeGenType);
         if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT){
             //Vue项目需要构建
-            boolean buildSuccess = vueProjectBuilder.buildProject(sourceDirPath);
+            boolean buildSuccess = vueBuildScheduler.buildProject(sourceDirPath);
             ThrowUtils.throwIf(!buildSuccess, ErrorCode.SYSTEM_ERROR, "Vue 项目构建失败，请检查代码和依赖");
             // 检查 dist 目录是否存在
             File distDir = new File(sourceDirPath, "dist");
@@ -196,13 +202,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             sourceDir = distDir;
             log.info("Vue 项目构建成功，将部署 dist 目录: {}", distDir.getAbsolutePath());
         }
-//        8.复制文件到部署目录
-        String deployDirPath =AppConstant.CODE_DEPLOY_ROOT_DIR+File.separator+deployKey;
-        try {
-            FileUtil.copyContent(sourceDir,new File(deployDirPath),true);
-        }catch (Exception e){
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR,"部署失败："+e.getMessage());
-        }
+//        8.增量同步文件到部署目录（只复制变化的文件，原子切换版本）
+        IncrementalDeployer.DeployResult deployResult = incrementalDeployer.deploy(sourceDir, deployKey);
 //        9.更新应用的deployKey和部署时间
         App updateApp = new App();
         updateApp.setId(appId);
@@ -212,8 +213,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         ThrowUtils.throwIf(!updateResult,ErrorCode.OPERATION_ERROR,"更新应用部署信息失败");
 //        10.构建应用访问 URL
         String appDeployUrl=String.format("%s/%s/",AppConstant.CODE_DEPLOY_HOST,deployKey);
-        //11.异步生成截图并更新应用封面
-        generateAppScreenshotAsync(appId, appDeployUrl);
+        //11.异步生成截图并更新应用封面（复用部署时计算的内容摘要，不再重复计算）
+        generateAppScreenshotAsync(appId, appDeployUrl, deployResult.contentDigest());
         return appDeployUrl;
     }
 
@@ -350,7 +351,32 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             // 记录日志但不阻止应用删除
             log.error("删除应用时关联删除对话历史失败，应用ID: {}", appId, e);
         }
-        return super.removeById(id);
+        boolean result = super.removeById(id);
+        appCacheManager.evict(appId);
+        return result;
+    }
+
+    /**
+     * 根据 ID 查询应用（先查两级缓存）
+     */
+    @Override
+    public App getById(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        return appCacheManager.get(Long.valueOf(id.toString()), appId -> super.getById(appId));
+    }
+
+    /**
+     * 更新应用后清除缓存
+     */
+    @Override
+    public boolean updateById(App entity, boolean ignoreNulls) {
+        boolean result = super.updateById(entity, ignoreNulls);
+        if (entity != null) {
+            appCacheManager.evict(entity.getId());
+        }
+        return result;
     }
 
     /**
@@ -390,11 +416,11 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
      * @param appId  应用ID
      * @param appUrl 应用访问URL
      */
-    public void generateAppScreenshotAsync(Long appId, String appUrl) {
+    public void generateAppScreenshotAsync(Long appId, String appUrl, String contentDigest) {
         // 使用虚拟线程异步执行
         Thread.startVirtualThread(() ->{
-            //// 调用截图服务生成截图并上传
-            String screenshotUrl = screenshotService.generateAndUploadScreenshot(appUrl);
+            //// 调用截图服务生成截图并上传（部署内容未变化时直接复用）
+            String screenshotUrl = screenshotService.getOrGenerateScreenshot(appUrl, contentDigest);
             // 更新应用封面
             App updateApp = new App();
             updateApp.setId(appId);
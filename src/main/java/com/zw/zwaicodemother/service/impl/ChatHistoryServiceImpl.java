@@ -2,21 +2,25 @@ package com.zw.zwaicodemother.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
-import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.zw.zwaicodemother.ai.memory.RehydratingChatMemoryStore;
 import com.zw.zwaicodemother.constant.UserConstant;
 import com.zw.zwaicodemother.exception.ErrorCode;
 import com.zw.zwaicodemother.exception.ThrowUtils;
+import com.zw.zwaicodemother.manager.ChatHistoryHotCache;
+import com.zw.zwaicodemother.manager.ChatHistoryWriteBuffer;
 import com.zw.zwaicodemother.mapper.ChatHistoryMapper;
 import com.zw.zwaicodemother.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.zw.zwaicodemother.model.entity.App;
 import com.zw.zwaicodemother.model.entity.ChatHistory;
 import com.zw.zwaicodemother.model.entity.User;
 import com.zw.zwaicodemother.model.enums.ChatHistoryMessageTypeEnum;
+import com.zw.zwaicodemother.model.vo.ChatHistoryCursorPageVO;
 import com.zw.zwaicodemother.service.AppService;
 import com.zw.zwaicodemother.service.ChatHistoryService;
 import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import jakarta.annotation.Resource;
@@ -25,6 +29,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -36,6 +41,15 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Lazy
     private AppService appService;
 
+    @Resource
+    private ChatHistoryWriteBuffer chatHistoryWriteBuffer;
+
+    @Resource
+    private ChatHistoryHotCache chatHistoryHotCache;
+
+    @Resource
+    private RehydratingChatMemoryStore rehydratingChatMemoryStore;
+
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
         // 基础校验
@@ -46,26 +60,39 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         // 验证消息类型是否有效
         ChatHistoryMessageTypeEnum messageTypeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(messageTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的消息类型");
-        // 插入数据库
         ChatHistory chatHistory = ChatHistory.builder()
                 .appId(appId)
                 .message(message)
                 .messageType(messageType)
                 .userId(userId)
                 .build();
-        return this.save(chatHistory);
+        // 异步批量写入（常在流结束回调中调用，不能阻塞在数据库上），入库后由缓冲区失效热点窗口；
+        // 积压过多或未开启时同步插入
+        if (chatHistoryWriteBuffer.isEnabled() && chatHistoryWriteBuffer.offer(chatHistory)) {
+            return true;
+        }
+        boolean result = this.save(chatHistory);
+        chatHistoryHotCache.evict(appId);
+        return result;
     }
 
     @Override
     public boolean deleteByAppId(Long appId) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        // 先让尚未入库的消息入库，避免删除之后又被写入
+        chatHistoryWriteBuffer.awaitFlushed(appId);
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq("appId", appId);
-        return this.remove(queryWrapper);
+        boolean result = this.remove(queryWrapper);
+        chatHistoryHotCache.evict(appId);
+        // 对话记忆同时失效，避免按已删除的历史继续对话
+        rehydratingChatMemoryStore.deleteMessages(appId);
+        return result;
     }
 
     @Override
-    public Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize, LocalDateTime lastCreateTime, User loginUser) {
+    public ChatHistoryCursorPageVO listAppChatHistoryByCursor(Long appId, int pageSize, LocalDateTime lastCreateTime,
+                                                             Long lastId, boolean withMessage, User loginUser) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
         ThrowUtils.throwIf(pageSize <= 0 || pageSize > 50, ErrorCode.PARAMS_ERROR, "页面大小必须在1-50之间");
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR);
@@ -75,13 +102,109 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         boolean isAdmin = UserConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
         boolean isCreator = app.getUserId().equals(loginUser.getId());
         ThrowUtils.throwIf(!isAdmin && !isCreator, ErrorCode.NO_AUTH_ERROR, "无权查看该应用的对话历史");
-        // 构建查询条件
-        ChatHistoryQueryRequest queryRequest = new ChatHistoryQueryRequest();
-        queryRequest.setAppId(appId);
-        queryRequest.setLastCreateTime(lastCreateTime);
-        QueryWrapper queryWrapper = this.getQueryWrapper(queryRequest);
-        // 查询数据
-        return this.page(Page.of(1, pageSize), queryWrapper);
+        // 多查一条用于判断是否还有下一页，不执行 COUNT
+        List<ChatHistory> records = null;
+        if (chatHistoryHotCache.isEnabled()) {
+            records = sliceHotWindow(appId, pageSize + 1, lastCreateTime, lastId);
+        }
+        if (records == null) {
+            // 保证能查到刚写入的消息
+            chatHistoryWriteBuffer.awaitFlushed(appId);
+            records = this.list(buildCursorQuery(appId, pageSize + 1, lastCreateTime, lastId, withMessage));
+        }
+        ChatHistoryCursorPageVO pageVO = new ChatHistoryCursorPageVO();
+        pageVO.setHasMore(records.size() > pageSize);
+        records = records.subList(0, Math.min(pageSize, records.size()));
+        if (!withMessage) {
+            records = records.stream().map(this::toMetadata).toList();
+        }
+        pageVO.setRecords(records);
+        if (!records.isEmpty()) {
+            ChatHistory last = records.get(records.size() - 1);
+            pageVO.setNextCreateTime(last.getCreateTime());
+            pageVO.setNextId(last.getId());
+        }
+        return pageVO;
+    }
+
+    /**
+     * 构建游标查询：按 (createTime, id) 降序，走 idx_appId_createTime 索引范围扫描，翻页代价只与页大小有关
+     * 只需要元数据时不查询 message 列，可以直接由覆盖索引返回
+     */
+    private QueryWrapper buildCursorQuery(Long appId, int limit, LocalDateTime lastCreateTime, Long lastId,
+                                          boolean withMessage) {
+        QueryWrapper queryWrapper = QueryWrapper.create();
+        if (withMessage) {
+            queryWrapper.select(ChatHistory::getId, ChatHistory::getMessage, ChatHistory::getMessageType,
+                    ChatHistory::getAppId, ChatHistory::getUserId, ChatHistory::getParentId,
+                    ChatHistory::getCreateTime, ChatHistory::getUpdateTime);
+        } else {
+            queryWrapper.select(ChatHistory::getId, ChatHistory::getMessageType, ChatHistory::getAppId,
+                    ChatHistory::getUserId, ChatHistory::getCreateTime);
+        }
+        queryWrapper.eq(ChatHistory::getAppId, appId);
+        if (lastCreateTime != null && lastId != null) {
+            queryWrapper.and(q -> q.lt(ChatHistory::getCreateTime, lastCreateTime)
+                    .or(q2 -> q2.eq(ChatHistory::getCreateTime, lastCreateTime).lt(ChatHistory::getId, lastId)));
+        } else if (lastCreateTime != null) {
+            // 兼容只传创建时间的旧游标
+            queryWrapper.lt(ChatHistory::getCreateTime, lastCreateTime);
+        }
+        return queryWrapper
+                .orderBy(ChatHistory::getCreateTime, false)
+                .orderBy(ChatHistory::getId, false)
+                .limit(limit);
+    }
+
+    /**
+     * 尝试从热点窗口中截取一页
+     *
+     * @return 截取结果；游标不在窗口内或窗口剩余消息不够一页（且窗口之外还有消息）时返回 null
+     */
+    private List<ChatHistory> sliceHotWindow(Long appId, int limit, LocalDateTime lastCreateTime, Long lastId) {
+        int windowSize = chatHistoryHotCache.getWindowSize();
+        if (lastCreateTime != null && lastId == null) {
+            return null;
+        }
+        // 本节点还有未入库的消息时缓存的窗口尚未失效，直接查库（查询前会等待入库）
+        if (chatHistoryWriteBuffer.hasPending(appId)) {
+            return null;
+        }
+        List<ChatHistory> window = chatHistoryHotCache.getWindow(appId,
+                id -> this.list(buildCursorQuery(id, windowSize + 1, null, null, true)));
+        // 窗口包含了应用的全部消息
+        boolean complete = window.size() <= windowSize;
+        int start = 0;
+        if (lastId != null) {
+            start = -1;
+            for (int i = 0; i < window.size(); i++) {
+                if (lastId.equals(window.get(i).getId())) {
+                    start = i + 1;
+                    break;
+                }
+            }
+            if (start < 0) {
+                return null;
+            }
+        }
+        int end = Math.min(start + limit, window.size());
+        if (end - start < limit && !complete) {
+            return null;
+        }
+        return new ArrayList<>(window.subList(start, end));
+    }
+
+    /**
+     * 只保留元数据的副本（不修改缓存中的对象）
+     */
+    private ChatHistory toMetadata(ChatHistory chatHistory) {
+        return ChatHistory.builder()
+                .id(chatHistory.getId())
+                .messageType(chatHistory.getMessageType())
+                .appId(chatHistory.getAppId())
+                .userId(chatHistory.getUserId())
+                .createTime(chatHistory.getCreateTime())
+                .build();
     }
 
     /**
@@ -124,35 +247,42 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         return queryWrapper;
     }
 
+    @Override
+    public List<ChatMessage> loadRecentChatMessages(Long appId, int maxCount) {
+        //最新的用户消息可能还在写入缓冲区中，先等它入库，下面的偏移量才准确
+        chatHistoryWriteBuffer.awaitFlushed(appId);
+        //直接构建查询条件，起始点为1而不是为0，用于排除最新的用户消息
+        QueryWrapper queryWrapper=  QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId)
+                .orderBy(ChatHistory::getCreateTime, false)
+                .orderBy(ChatHistory::getId, false)
+                .limit(1, maxCount);
+        List<ChatHistory> chatHistoryList = this.list(queryWrapper);
+        //反转列表，确保按时间正序（老的在前，新的在后）
+        List<ChatMessage> messages = new ArrayList<>(chatHistoryList.size());
+        for (ChatHistory chatHistory : chatHistoryList.reversed()) {
+            if (ChatHistoryMessageTypeEnum.USER.getValue().equals(chatHistory.getMessageType())){
+                messages.add(UserMessage.from(chatHistory.getMessage()));
+            } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(chatHistory.getMessageType())){
+                messages.add(AiMessage.from(chatHistory.getMessage()));
+            }
+        }
+        return messages;
+    }
+
     @Override
     public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
         try {
-            //直接构建查询条件，起始点为1而不是为0，用于排除最新的用户消息
-            QueryWrapper queryWrapper=  QueryWrapper.create()
-                    .eq(ChatHistory::getAppId, appId)
-                    .orderBy(ChatHistory::getCreateTime, false)
-                    .limit(1, maxCount);
-            List<ChatHistory> chatHistoryList = this.list(queryWrapper);
-            if (CollUtil.isNotEmpty(chatHistoryList)) {
+            List<ChatMessage> messages = loadRecentChatMessages(appId, maxCount);
+            if (CollUtil.isEmpty(messages)) {
                 return 0;
             }
-            //反转列表，确保按时间正序（老的在前，新的在后）
-            chatHistoryList=chatHistoryList.reversed();
-            //按时间顺序添加到记忆中
-            int loadedCount =0;
             //先清理历史缓存，防止重新加载
             chatMemory.clear();
-            for (ChatHistory chatHistory : chatHistoryList) {
-                if (ChatHistoryMessageTypeEnum.USER.getValue().equals(chatHistory.getMessageType())){
-                    chatMemory.add(UserMessage.from(chatHistory.getMessage()));
-                    loadedCount++;
-                } else if (ChatHistoryMessageTypeEnum.AI.getValue().equals(chatHistory.getMessageType())){
-                    chatMemory.add(AiMessage.from(chatHistory.getMessage()));
-                    loadedCount++;
-                }
-            }
-            log.info("成功为 appId: {} 加载了 {} 条历史对话", appId, loadedCount);
-            return loadedCount;
+            //按时间顺序添加到记忆中
+            messages.forEach(chatMemory::add);
+            log.info("成功为 appId: {} 加载了 {} 条历史对话", appId, messages.size());
+            return messages.size();
         }catch (Exception  e){
             log.error("加载 appId: {} 到记忆中的历史对话失败,error:{}", appId, e.getMessage(),e);
             // 加载失败不影响系统运行，只是没有历史上下文
@@ -161,5 +291,3 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         }
 }
 }
-
-
@@ -1,21 +1,22 @@
 package com.zw.zwaicodemother.service.impl;
 
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.StrUtil;
-import com.zw.zwaicodemother.common.WebScreenshotUtils;
+import com.zw.zwaicodemother.config.ScreenshotConfig;
 import com.zw.zwaicodemother.exception.ErrorCode;
 import com.zw.zwaicodemother.exception.ThrowUtils;
 import com.zw.zwaicodemother.manager.CosManager;
+import com.zw.zwaicodemother.manager.ScreenshotManager;
 import com.zw.zwaicodemother.service.ScreenshotService;
-import io.micrometer.common.util.StringUtils;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.annotation.Reference;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -26,44 +27,71 @@ public class ScreenshotServiceImpl  implements ScreenshotService {
     @Resource
     private CosManager cosManager ;
 
+    @Resource
+    private ScreenshotManager screenshotManager;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    /**
+     * 截图缓存 key 前缀，后接部署目录内容摘要
+     */
+    private static final String SCREENSHOT_CACHE_KEY_PREFIX = "screenshot:cover:";
+
     @Override
     public String generateAndUploadScreenshot(String webUrl) {
         ThrowUtils.throwIf(StrUtil.isBlank(webUrl), ErrorCode.PARAMS_ERROR,"网页URL不能为空");
         log.info("开始生成网页截图，URL: {}", webUrl);
-        //1.生成本地截图
-        String localScreenshotPath = WebScreenshotUtils.saveWebPageScreenshot(webUrl);
-        ThrowUtils.throwIf(StrUtil.isBlank(localScreenshotPath), ErrorCode.SYSTEM_ERROR,"本地截图生成失败");
-        try{
-            //2.上传到对象存储
-            String cosUrl=uploadScreenshotToCos(localScreenshotPath);
-            ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.SYSTEM_ERROR,"上传到对象存储失败");
-            log.info("网页截图生成并上传成功: {} -> {}", webUrl, cosUrl);
-            return  cosUrl;
-        }finally {
-            //3.删除本地截图
-            cleanupLocalFile(localScreenshotPath);
+        //1.生成截图（经截图管理器使用浏览器池，全程在内存中处理）
+        byte[] screenshotBytes = screenshotManager.takeScreenshotAsync(webUrl).join();
+        ThrowUtils.throwIf(screenshotBytes == null || screenshotBytes.length == 0, ErrorCode.SYSTEM_ERROR,"网页截图生成失败");
+        //2.上传到对象存储
+        String cosUrl=uploadScreenshotToCos(screenshotBytes);
+        ThrowUtils.throwIf(StrUtil.isBlank(cosUrl), ErrorCode.SYSTEM_ERROR,"上传到对象存储失败");
+        log.info("网页截图生成并上传成功: {} -> {}", webUrl, cosUrl);
+        return  cosUrl;
+    }
+    @Override
+    public String getOrGenerateScreenshot(String webUrl, String contentDigest) {
+        ThrowUtils.throwIf(StrUtil.isBlank(webUrl), ErrorCode.PARAMS_ERROR,"网页URL不能为空");
+        if (StrUtil.isNotBlank(contentDigest)) {
+            try {
+                String cachedUrl = stringRedisTemplate.opsForValue().get(SCREENSHOT_CACHE_KEY_PREFIX + contentDigest);
+                if (StrUtil.isNotBlank(cachedUrl)) {
+                    log.info("部署内容未变化，复用已有截图: {} -> {}", webUrl, cachedUrl);
+                    return cachedUrl;
+                }
+            } catch (Exception e) {
+                // 缓存不可用不影响截图
+                log.warn("查询截图缓存失败，直接生成截图: {}", e.getMessage());
+            }
+        }
+        String cosUrl = generateAndUploadScreenshot(webUrl);
+        if (StrUtil.isNotBlank(contentDigest)) {
+            try {
+                stringRedisTemplate.opsForValue().set(SCREENSHOT_CACHE_KEY_PREFIX + contentDigest, cosUrl,
+                        Duration.ofDays(screenshotConfig.getCacheTtlDays()));
+            } catch (Exception e) {
+                log.warn("写入截图缓存失败: {}", e.getMessage());
+            }
         }
+        return cosUrl;
     }
     /**
      * 上传截图到对象存储
      *
-     * @param localScreenshotPath 本地截图路径
+     * @param screenshotBytes 截图内容（JPEG）
      * @return 对象存储访问URL，失败返回null
      */
-    private String uploadScreenshotToCos(String localScreenshotPath) {
-        if (StringUtils.isBlank(localScreenshotPath)) {
-            return null;
-        }
-        File screenshotFile = new File(localScreenshotPath);
-        if (!screenshotFile.exists()) {
-            log.error("本地截图文件不存在: {}", localScreenshotPath);
-            return null;
-        }
+    private String uploadScreenshotToCos(byte[] screenshotBytes) {
         //生成COS对象键
         String fileName = UUID.randomUUID().toString().substring(0, 8) + "_compressed.jpg";
         String cosKey = generateScreenshotKey(fileName);
-        log.info("cosManager.uploadFile："+cosManager.uploadFile(cosKey,screenshotFile));
-        return  cosManager.uploadFile(cosKey,screenshotFile);
+        return cosManager.uploadStream(cosKey, new ByteArrayInputStream(screenshotBytes),
+                screenshotBytes.length, "image/jpeg");
     }
     /**
      * 生成截图的对象存储键
@@ -73,19 +101,5 @@ public class ScreenshotServiceImpl  implements ScreenshotService {
         String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
         return String.format("/screenshots/%s/%s", datePath, fileName);
     }
-    /**
-     * 清理本地文件
-     *
-     * @param localFilePath 本地文件路径
-     */
-    private void cleanupLocalFile(String localFilePath) {
-        File localFile = new File(localFilePath);
-        if (localFile.exists()) {
-            File parentFile = localFile.getParentFile();
-            FileUtil.del(parentFile);
-            log.info("清理本地文件成功: {}", localFilePath);
-        }
-
-    }
 
 }
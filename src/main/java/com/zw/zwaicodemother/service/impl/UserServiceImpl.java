@@ -7,6 +7,7 @@ import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.zw.zwaicodemother.exception.BusinessException;
 import com.zw.zwaicodemother.exception.ErrorCode;
+import com.zw.zwaicodemother.manager.LoginUserCacheManager;
 import com.zw.zwaicodemother.mapper.UserMapper;
 import com.zw.zwaicodemother.model.dto.user.UserQueryRequest;
 import com.zw.zwaicodemother.model.entity.User;
@@ -14,12 +15,14 @@ import com.zw.zwaicodemother.model.entity.UserRoleEnum;
 import com.zw.zwaicodemother.model.vo.LoginUserVO;
 import com.zw.zwaicodemother.model.vo.UserVO;
 import com.zw.zwaicodemother.service.UserService;
+import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -38,6 +41,9 @@ import static com.zw.zwaicodemother.constant.UserConstant.USER_LOGIN_STATE;
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements UserService {
 
+    @Resource
+    private LoginUserCacheManager loginUserCacheManager;
+
     @Override
     public long userRegister(String userAccount, String userPassword, String checkPassword) {
         //校验
@@ -124,7 +130,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements U
 
 /*
 *
-* 先从 Session ؜中获取登录用户的 id，然后从数据库中查询最新的结果*/
+* 先从 Session ؜中获取登录用户的 id，然后从缓存或数据库中查询最新的结果*/
     @Override
     public User getLoginUser(HttpServletRequest request) {
         //先判断是否已登录
@@ -133,15 +139,39 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements U
         if(currentUser==null || currentUser.getId() == null){
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
-        //从数据库查询（追求性能的话可以注释，直接返回上述结果）
+        //获取最新的用户信息（优先读本地缓存，用户更新或删除后缓存立即失效，保证角色变更及时生效）
         long userId=currentUser.getId();
-        currentUser=this.getById(userId);
+        currentUser=loginUserCacheManager.get(userId, this::getById);
         if (currentUser==null){
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
         return currentUser;
     }
 
+    /**
+     * 更新用户后使登录用户缓存失效
+     */
+    @Override
+    public boolean updateById(User entity, boolean ignoreNulls) {
+        boolean result = super.updateById(entity, ignoreNulls);
+        if (entity != null) {
+            loginUserCacheManager.evict(entity.getId());
+        }
+        return result;
+    }
+
+    /**
+     * 删除用户后使登录用户缓存失效
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (id != null) {
+            loginUserCacheManager.evict(Long.valueOf(id.toString()));
+        }
+        return result;
+    }
+
     @Override
     public boolean userLogout(HttpServletRequest request) {
         //判断是否已登录
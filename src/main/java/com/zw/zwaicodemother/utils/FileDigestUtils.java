@@ -0,0 +1,131 @@
+package com.zw.zwaicodemother.utils;
+
+import cn.hutool.core.util.HexUtil;
+import com.zw.zwaicodemother.exception.BusinessException;
+import com.zw.zwaicodemother.exception.ErrorCode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 文件内容摘要工具类（SHA-256）
+ */
+public class FileDigestUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileDigestUtils() {
+    }
+
+    /**
+     * 计算单个文件的摘要
+     *
+     * @param file 文件
+     * @return 十六进制摘要
+     */
+    public static String digestFile(File file) {
+        MessageDigest messageDigest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取文件失败：" + file.getPath());
+        }
+        return HexUtil.encodeHexStr(messageDigest.digest());
+    }
+
+    /**
+     * 计算目录下所有文件的摘要
+     *
+     * @param dir 目录（可以是指向目录的符号链接）
+     * @return 相对路径（以 / 分隔）到摘要的映射，按路径排序
+     */
+    public static Map<String, String> digestFiles(File dir) {
+        return digestFiles(dir, Set.of());
+    }
+
+    /**
+     * 计算目录下所有文件的摘要，跳过指定名称的文件和目录（任意层级，目录不会被遍历）
+     *
+     * @param dir           目录（可以是指向目录的符号链接）
+     * @param excludedNames 需要跳过的文件或目录名，如 node_modules
+     * @return 相对路径（以 / 分隔）到摘要的映射，按路径排序
+     */
+    public static Map<String, String> digestFiles(File dir, Set<String> excludedNames) {
+        Map<String, String> digests = new TreeMap<>();
+        try {
+            Path root = dir.toPath().toRealPath();
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                    if (!path.equals(root) && excludedNames.contains(path.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !excludedNames.contains(path.getFileName().toString())) {
+                        String relativePath = root.relativize(path).toString().replace(File.separatorChar, '/');
+                        digests.put(relativePath, digestFile(path.toFile()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "遍历目录失败：" + dir.getPath());
+        }
+        return digests;
+    }
+
+    /**
+     * 计算整个目录树的摘要，文件路径和内容都相同时摘要相同
+     *
+     * @param dir 目录
+     * @return 十六进制摘要
+     */
+    public static String digestTree(File dir) {
+        return digestTree(digestFiles(dir));
+    }
+
+    /**
+     * 根据文件摘要计算目录树摘要
+     *
+     * @param fileDigests {@link #digestFiles(File)} 的结果
+     * @return 十六进制摘要
+     */
+    public static String digestTree(Map<String, String> fileDigests) {
+        MessageDigest messageDigest = newDigest();
+        new TreeMap<>(fileDigests).forEach((path, digest) -> {
+            messageDigest.update(path.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(digest.getBytes(StandardCharsets.US_ASCII));
+            messageDigest.update((byte) '\n');
+        });
+        return HexUtil.encodeHexStr(messageDigest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
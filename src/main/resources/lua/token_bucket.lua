@@ -0,0 +1,33 @@
+-- 令牌桶限流（支持多个桶原子地同时获取）
+-- KEYS[i] 第 i 个桶 key
+-- ARGV[2i-1] 第 i 个桶容量，ARGV[2i] 第 i 个桶每毫秒补充的令牌数
+-- 所有桶都有令牌时才一起扣减，返回 0；否则不扣减，返回第一个令牌不足的桶序号（从 1 开始）
+-- 使用 Redis 服务器时间，避免多实例之间的时钟偏差
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local states = {}
+for i, key in ipairs(KEYS) do
+    local capacity = tonumber(ARGV[2 * i - 1])
+    local refillPerMs = tonumber(ARGV[2 * i])
+    local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+    local tokens = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if tokens == nil or ts == nil then
+        tokens = capacity
+        ts = now
+    end
+    tokens = math.min(capacity, tokens + math.max(0, now - ts) * refillPerMs)
+    if tokens < 1 then
+        return i
+    end
+    states[i] = { tokens = tokens, capacity = capacity, refillPerMs = refillPerMs }
+end
+
+for i, key in ipairs(KEYS) do
+    local state = states[i]
+    redis.call('HSET', key, 'tokens', tostring(state.tokens - 1), 'ts', tostring(now))
+    -- 桶补满所需时间后自动过期
+    redis.call('PEXPIRE', key, math.ceil(state.capacity / state.refillPerMs) + 1000)
+end
+return 0
@@ -18,7 +18,7 @@ public class AiCodeGeneratorServiceTest {
     }
     @Test
     void generateMultiFileCode() {
-        MultiFileCodeResult multiFileCode = aiCodeGeneratorService.generateMultiFileCode("做个程序员zw的留言板");
+        MultiFileCodeResult multiFileCode = aiCodeGeneratorService.generateMultiFileCode(1, "做个程序员zw的留言板");
         Assertions.assertNotNull(multiFileCode);
     }
     @Test
@@ -0,0 +1,62 @@
+package com.zw.zwaicodemother.ai.memory;
+
+import com.zw.zwaicodemother.config.RedisChatMemoryStoreConfig;
+import com.zw.zwaicodemother.service.ChatHistoryService;
+import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class RehydratingChatMemoryStoreTest {
+
+    private final RedisChatMemoryStore redisChatMemoryStore = Mockito.mock(RedisChatMemoryStore.class);
+
+    private final ChatHistoryService chatHistoryService = Mockito.mock(ChatHistoryService.class);
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = Mockito.mock(ValueOperations.class);
+
+    private final RehydratingChatMemoryStore store = new RehydratingChatMemoryStore();
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        RedisChatMemoryStoreConfig config = new RedisChatMemoryStoreConfig();
+        config.setTtl(3600);
+        Mockito.when(redisChatMemoryStore.getMessages(any())).thenReturn(List.of());
+        ReflectionTestUtils.setField(store, "redisChatMemoryStore", redisChatMemoryStore);
+        ReflectionTestUtils.setField(store, "redisChatMemoryStoreConfig", config);
+        ReflectionTestUtils.setField(store, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(store, "chatHistoryService", chatHistoryService);
+    }
+
+    @Test
+    void emptyHistoryOnlyWritesWatermark() {
+        Mockito.when(chatHistoryService.loadRecentChatMessages(1L, 20)).thenReturn(List.of());
+        Assertions.assertTrue(store.getMessages(1L).isEmpty());
+        Mockito.verify(redisChatMemoryStore, Mockito.never()).updateMessages(any(), anyList());
+        Mockito.verify(valueOperations).set("chat-memory:watermark:1", "0", Duration.ofSeconds(3600));
+    }
+
+    @Test
+    void rehydrateFromHistory() {
+        List<ChatMessage> history = List.of(UserMessage.from("生成项目"));
+        Mockito.when(chatHistoryService.loadRecentChatMessages(1L, 20)).thenReturn(history);
+        Assertions.assertEquals(history, store.getMessages(1L));
+        Mockito.verify(redisChatMemoryStore).updateMessages(1L, history);
+        Mockito.verify(valueOperations).set("chat-memory:watermark:1", "1", Duration.ofSeconds(3600));
+    }
+}
@@ -0,0 +1,123 @@
+package com.zw.zwaicodemother.ai.memory;
+
+import com.zw.zwaicodemother.config.ChatMemoryConfig;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class TokenBudgetChatMemoryTest {
+
+    private TokenBudgetChatMemory newMemory(int maxTokens) {
+        ChatMemoryConfig config = new ChatMemoryConfig();
+        config.setMaxTokens(maxTokens);
+        config.setToolContentMaxChars(20);
+        return new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), config, null);
+    }
+
+    @Test
+    void keepSystemMessageFirst() {
+        TokenBudgetChatMemory memory = newMemory(10000);
+        memory.add(UserMessage.from("历史问题"));
+        memory.add(AiMessage.from("历史回答"));
+        memory.add(SystemMessage.from("系统提示词"));
+        memory.add(SystemMessage.from("系统提示词"));
+        List<ChatMessage> messages = memory.messages();
+        Assertions.assertEquals(3, messages.size());
+        Assertions.assertInstanceOf(SystemMessage.class, messages.get(0));
+    }
+
+    @Test
+    void collapseToolContentsOfPreviousTurns() {
+        String content = "x".repeat(400);
+        // 预算足够容纳一份工具内容，容纳不下两份
+        TokenBudgetChatMemory memory = newMemory(300);
+        ToolExecutionRequest request = ToolExecutionRequest.builder()
+                .id("1")
+                .name("writeFile")
+                .arguments("{\"relativeFilePath\":\"src/App.vue\",\"content\":\"" + content + "\"}")
+                .build();
+        memory.add(UserMessage.from("生成项目"));
+        memory.add(AiMessage.from(request));
+        memory.add(ToolExecutionResultMessage.from(request, content));
+        // 未超预算不改写
+        Assertions.assertEquals(content, ((ToolExecutionResultMessage) memory.messages().get(2)).text());
+        memory.add(AiMessage.from("完成"));
+        memory.add(UserMessage.from("修改标题"));
+        Assertions.assertEquals(content, ((ToolExecutionResultMessage) memory.messages().get(2)).text());
+        // 本轮的工具结果使记忆超出预算，只折叠之前轮次的内容
+        ToolExecutionRequest readRequest = ToolExecutionRequest.builder()
+                .id("2")
+                .name("readFile")
+                .arguments("{\"relativeFilePath\":\"src/main.js\"}")
+                .build();
+        memory.add(AiMessage.from(readRequest));
+        memory.add(ToolExecutionResultMessage.from(readRequest, content));
+        List<ChatMessage> messages = memory.messages();
+        Assertions.assertEquals(7, messages.size());
+        Assertions.assertEquals(content, ((ToolExecutionResultMessage) messages.get(6)).text());
+        String arguments = ((AiMessage) messages.get(1)).toolExecutionRequests().get(0).arguments();
+        Assertions.assertTrue(arguments.contains("src/App.vue"));
+        Assertions.assertFalse(arguments.contains(content));
+        ToolExecutionResultMessage result = (ToolExecutionResultMessage) messages.get(2);
+        Assertions.assertEquals("1", result.id());
+        Assertions.assertFalse(result.text().contains(content));
+    }
+
+    @Test
+    void evictWholeTurnsOverBudget() {
+        TokenBudgetChatMemory memory = newMemory(60);
+        memory.add(SystemMessage.from("系统提示词"));
+        for (int i = 0; i < 5; i++) {
+            memory.add(UserMessage.from("问题" + i + "一二三四五六七八九十"));
+            memory.add(AiMessage.from("回答" + i + "一二三四五六七八九十"));
+        }
+        List<ChatMessage> messages = memory.messages();
+        Assertions.assertInstanceOf(SystemMessage.class, messages.get(0));
+        Assertions.assertInstanceOf(UserMessage.class, messages.get(1));
+        int tokens = 0;
+        for (ChatMessage message : messages.subList(1, messages.size())) {
+            tokens += ChatMessageTokenEstimator.estimate(message);
+        }
+        // 一次淘汰到低水位（预算的 70%）以下
+        Assertions.assertTrue(tokens <= 42);
+        Assertions.assertEquals("回答4一二三四五六七八九十", ((AiMessage) messages.get(messages.size() - 1)).text());
+    }
+
+    @Test
+    void keepCurrentTurnWhenOverflowInsideToolLoop() {
+        String content = "x".repeat(400);
+        TokenBudgetChatMemory memory = newMemory(150);
+        memory.add(UserMessage.from("历史问题"));
+        memory.add(AiMessage.from("历史回答"));
+        memory.add(UserMessage.from("生成项目"));
+        ToolExecutionRequest first = ToolExecutionRequest.builder()
+                .id("1").name("readFile").arguments("{\"relativeFilePath\":\"src/App.vue\"}").build();
+        memory.add(AiMessage.from(first));
+        memory.add(ToolExecutionResultMessage.from(first, content));
+        ToolExecutionRequest second = ToolExecutionRequest.builder()
+                .id("2").name("readFile").arguments("{\"relativeFilePath\":\"src/main.js\"}").build();
+        memory.add(AiMessage.from(second));
+        // 本轮第二个工具结果使记忆超出预算：只淘汰之前的轮次，本轮折叠已处理过的工具结果
+        memory.add(ToolExecutionResultMessage.from(second, content));
+        List<ChatMessage> messages = memory.messages();
+        Assertions.assertEquals(5, messages.size());
+        Assertions.assertEquals("生成项目", ((UserMessage) messages.get(0)).singleText());
+        ToolExecutionResultMessage firstResult = (ToolExecutionResultMessage) messages.get(2);
+        Assertions.assertEquals("1", firstResult.id());
+        Assertions.assertFalse(firstResult.text().contains(content));
+        ToolExecutionResultMessage secondResult = (ToolExecutionResultMessage) messages.get(4);
+        Assertions.assertEquals("2", secondResult.id());
+        Assertions.assertEquals(content, secondResult.text());
+        // 每个工具结果前面都有对应的调用请求
+        Assertions.assertEquals("1", ((AiMessage) messages.get(1)).toolExecutionRequests().get(0).id());
+        Assertions.assertEquals("2", ((AiMessage) messages.get(3)).toolExecutionRequests().get(0).id());
+    }
+}
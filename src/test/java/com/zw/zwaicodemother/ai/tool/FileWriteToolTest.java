@@ -0,0 +1,40 @@
+package com.zw.zwaicodemother.ai.tool;
+
+import cn.hutool.core.io.FileUtil;
+import com.zw.zwaicodemother.constant.AppConstant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileWriteToolTest {
+
+    private static final long APP_ID = 987654321L;
+
+    private final File projectDir = new File(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + APP_ID);
+
+    private Path outsideDir;
+
+    @AfterEach
+    void cleanup() {
+        FileUtil.del(projectDir);
+        if (outsideDir != null) {
+            FileUtil.del(outsideDir.toFile());
+        }
+    }
+
+    @Test
+    void rejectPathsOutsideProject() throws Exception {
+        FileWriteTool fileWriteTool = new FileWriteTool();
+        Assertions.assertTrue(fileWriteTool.writeFile("src/App.vue", "<template/>", APP_ID).startsWith("文件写入成功"));
+        Assertions.assertTrue(fileWriteTool.writeFile("../escape.txt", "x", APP_ID).startsWith("错误"));
+        // node_modules 是指向共享依赖仓库的链接，不能通过它改写其他应用共用的文件
+        outsideDir = Files.createTempDirectory("shared_node_modules");
+        Files.createSymbolicLink(projectDir.toPath().resolve("node_modules"), outsideDir);
+        Assertions.assertTrue(fileWriteTool.writeFile("node_modules/vue/index.js", "x", APP_ID).startsWith("错误"));
+        Assertions.assertFalse(Files.exists(outsideDir.resolve("vue/index.js")));
+    }
+}
@@ -2,6 +2,8 @@ package com.zw.zwaicodemother.core;
 
 
 import com.zw.zwaicodemother.ai.enums.CodeGenTypeEnum;
+import com.zw.zwaicodemother.ai.model.message.AiResponseMessage;
+import com.zw.zwaicodemother.ai.model.message.StreamMessage;
 import com.zw.zwaicodemother.ai.model.HtmlCodeResult;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Assertions;
@@ -11,6 +13,7 @@ import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @SpringBootTest
 public class AiCodeGeneratorFacadeTest {
@@ -24,25 +27,31 @@ public class AiCodeGeneratorFacadeTest {
     }
     @Test
     void generateAndSaveCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("任务记录网站", CodeGenTypeEnum.MULTI_FILE,1L);
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream("任务记录网站", CodeGenTypeEnum.MULTI_FILE,1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         Assertions.assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .filter(AiResponseMessage.class::isInstance)
+                .map(message -> ((AiResponseMessage) message).getData())
+                .collect(Collectors.joining());
         Assertions.assertNotNull(completeContent);
     }
 
     @Test
     void generateAndSaveCodeStreamStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateAndSaveCodeStream(
                 "简单的任务记录网站，总代码量不超过 200 行",
                 CodeGenTypeEnum.VUE_PROJECT,1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         Assertions.assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .filter(AiResponseMessage.class::isInstance)
+                .map(message -> ((AiResponseMessage) message).getData())
+                .collect(Collectors.joining());
         Assertions.assertNotNull(completeContent);
     }
 
@@ -0,0 +1,35 @@
+package com.zw.zwaicodemother.core.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BuildLogBufferTest {
+
+    @Test
+    void keepOnlyLatestLines() {
+        BuildLogBuffer buffer = new BuildLogBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.append("stdout", "line" + i);
+        }
+        List<BuildLogBuffer.BuildLogLine> lines = buffer.readFrom(0);
+        // 被覆盖的前两行直接跳过
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertEquals(2, lines.get(0).seq());
+        Assertions.assertEquals("line4", lines.get(2).text());
+        Assertions.assertEquals(1, buffer.readFrom(4).size());
+        Assertions.assertTrue(buffer.readFrom(5).isEmpty());
+        Assertions.assertEquals("line3\nline4", buffer.tailText(2));
+    }
+
+    @Test
+    void notifyListener() {
+        BuildLogBuffer buffer = new BuildLogBuffer(10);
+        List<String> received = new ArrayList<>();
+        buffer.addListener(line -> received.add(line.text()));
+        buffer.append("stderr", "warn");
+        Assertions.assertEquals(List.of("warn"), received);
+    }
+}
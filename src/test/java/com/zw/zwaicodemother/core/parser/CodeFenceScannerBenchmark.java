@@ -0,0 +1,125 @@
+package com.zw.zwaicodemother.core.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 代码块提取基准测试：原三次懒惰正则 vs 单遍扫描
+ * 运行方式：在 IDE 中直接运行 main 方法，或 mvn test-compile 后用 test classpath 执行本类
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeFenceScannerBenchmark {
+
+    /**
+     * 原 MultiFileCodeParser 中的正则实现
+     */
+    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 模型输出大小（KB）
+     */
+    @Param({"10", "100", "500"})
+    private int sizeKb;
+
+    /**
+     * 是否模拟缺失结尾 ``` 的异常输出
+     */
+    @Param({"false", "true"})
+    private boolean malformed;
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        content = buildModelOutput(sizeKb * 1024, malformed);
+    }
+
+    @Benchmark
+    public void regexThreePass(Blackhole blackhole) {
+        blackhole.consume(extractByPattern(content, HTML_CODE_PATTERN));
+        blackhole.consume(extractByPattern(content, CSS_CODE_PATTERN));
+        blackhole.consume(extractByPattern(content, JS_CODE_PATTERN));
+    }
+
+    @Benchmark
+    public void singlePassScanner(Blackhole blackhole) {
+        List<CodeFenceScanner.CodeBlock> blocks = CodeFenceScanner.scan(content);
+        blackhole.consume(CodeFenceScanner.findFirst(blocks, "html"));
+        blackhole.consume(CodeFenceScanner.findFirst(blocks, "css"));
+        blackhole.consume(CodeFenceScanner.findFirst(blocks, "js", "javascript"));
+    }
+
+    private static String extractByPattern(String content, Pattern pattern) {
+        Matcher matcher = pattern.matcher(content);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        return null;
+    }
+
+    /**
+     * 构造接近真实模型输出的内容：说明文字 + html/css/js 三个代码块，按比例填充到目标大小
+     */
+    private static String buildModelOutput(int targetSize, boolean malformed) {
+        int sectionSize = targetSize / 3;
+        StringBuilder html = new StringBuilder("<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<head>\n    <meta charset=\"UTF-8\">\n"
+                + "    <link rel=\"stylesheet\" href=\"style.css\">\n</head>\n<body>\n");
+        for (int i = 0; html.length() < sectionSize; i++) {
+            html.append("    <section class=\"card\" id=\"card-").append(i).append("\">\n")
+                    .append("        <h2>任务 ").append(i).append("</h2>\n")
+                    .append("        <p>这是第 ").append(i).append(" 个任务的描述内容，用于模拟真实页面。</p>\n")
+                    .append("    </section>\n");
+        }
+        html.append("    <script src=\"script.js\"></script>\n</body>\n</html>");
+        StringBuilder css = new StringBuilder();
+        for (int i = 0; css.length() < sectionSize; i++) {
+            css.append("#card-").append(i).append(" {\n    margin: ").append(i % 16)
+                    .append("px;\n    color: #333;\n    border-radius: 8px;\n}\n");
+        }
+        StringBuilder js = new StringBuilder();
+        for (int i = 0; js.length() < sectionSize; i++) {
+            js.append("document.getElementById('card-").append(i)
+                    .append("').addEventListener('click', () => console.log(`card ").append(i).append("`));\n");
+        }
+        StringBuilder output = new StringBuilder();
+        output.append("好的，下面是一个任务记录网站的完整实现，包含 HTML、CSS 和 JavaScript 三个文件。\n\n");
+        output.append("```html\n").append(html).append("\n```\n\n样式文件：\n\n");
+        output.append("```css\n").append(css).append("\n```\n\n交互脚本：\n\n");
+        output.append("```javascript\n").append(js);
+        if (!malformed) {
+            output.append("\n```\n\n以上代码可以直接在浏览器中打开使用。");
+        }
+        return output.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CodeFenceScannerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
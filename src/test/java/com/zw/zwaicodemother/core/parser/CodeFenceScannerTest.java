@@ -0,0 +1,52 @@
+package com.zw.zwaicodemother.core.parser;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class CodeFenceScannerTest {
+
+    @Test
+    void scanAllBlocks() {
+        String content = """
+                说明文字
+                ```HTML
+                <h1>a</h1>
+                ```
+                中间说明
+                ```css
+                h1 { color: red; }
+                ```
+                ```js
+                console.log(1);
+                ```
+                ```javascript
+                console.log(2);
+                ```
+                结束""";
+        List<CodeFenceScanner.CodeBlock> blocks = CodeFenceScanner.scan(content);
+        Assertions.assertEquals(4, blocks.size());
+        Assertions.assertEquals("html", blocks.get(0).language());
+        Assertions.assertEquals("<h1>a</h1>", blocks.get(0).code());
+        Assertions.assertEquals("h1 { color: red; }", CodeFenceScanner.findFirst(blocks, "css"));
+        // 同一语言取第一个代码块
+        Assertions.assertEquals("console.log(1);", CodeFenceScanner.findFirst(blocks, "js", "javascript"));
+    }
+
+    @Test
+    void ignoreUnclosedBlock() {
+        String content = "```html\n<h1>a</h1>\n```\n```css\nh1 {}\n";
+        List<CodeFenceScanner.CodeBlock> blocks = CodeFenceScanner.scan(content);
+        Assertions.assertEquals(1, blocks.size());
+        Assertions.assertNull(CodeFenceScanner.findFirst(blocks, "css"));
+    }
+
+    @Test
+    void blockWithoutLanguage() {
+        List<CodeFenceScanner.CodeBlock> blocks = CodeFenceScanner.scan("```\nplain\n```");
+        Assertions.assertEquals(1, blocks.size());
+        Assertions.assertEquals("", blocks.get(0).language());
+        Assertions.assertTrue(CodeFenceScanner.scan(null).isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.zw.zwaicodemother.core.parser;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <body>
+                <h1>欢迎使用</h1>
+            </body>
+            </html>
+            ```
+            ```css
+            h1 {
+                color: blue;
+            }
+            ```
+            ```javascript
+            console.log('页面加载完成');
+            ```""";
+
+    @Test
+    void parseBlocksAcrossChunkBoundaries() {
+        List<String[]> blocks = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> blocks.add(new String[]{language, code}));
+        // 按 3 个字符切片，模拟模型逐 token 输出，确保 ``` 和换行被切断
+        for (int i = 0; i < MULTI_FILE_CONTENT.length(); i += 3) {
+            parser.onNext(MULTI_FILE_CONTENT.substring(i, Math.min(i + 3, MULTI_FILE_CONTENT.length())));
+        }
+        // 最后一个代码块在 onComplete 时才闭合
+        Assertions.assertEquals(2, blocks.size());
+        parser.onComplete();
+        Assertions.assertEquals(3, blocks.size());
+        Assertions.assertEquals("html", blocks.get(0)[0]);
+        Assertions.assertTrue(blocks.get(0)[1].startsWith("<!DOCTYPE html>"));
+        Assertions.assertTrue(blocks.get(0)[1].endsWith("</html>"));
+        Assertions.assertEquals("css", blocks.get(1)[0]);
+        Assertions.assertEquals("javascript", blocks.get(2)[0]);
+        Assertions.assertEquals("console.log('页面加载完成');", blocks.get(2)[1]);
+        Assertions.assertNull(parser.getUnfencedContent());
+    }
+
+    @Test
+    void keepUnfencedContentWhenNoBlock() {
+        List<String> codes = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> codes.add(code));
+        parser.onNext("<html><body>");
+        parser.onNext("</body></html>");
+        parser.onComplete();
+        Assertions.assertTrue(codes.isEmpty());
+        Assertions.assertEquals("<html><body></body></html>", parser.getUnfencedContent());
+    }
+
+    @Test
+    void keepUnfencedContentWhenBlockRejected() {
+        // HTML 模式下先输出的 ```css 块不会被保存，兜底内容必须保留
+        String content = "```css\nh1 { color: red; }\n```\n<html><body></body></html>";
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> false);
+        parser.onNext(content);
+        parser.onComplete();
+        Assertions.assertEquals(1, parser.getEmittedBlockCount());
+        Assertions.assertEquals(content, parser.getUnfencedContent());
+    }
+
+    @Test
+    void dropUnclosedBlock() {
+        List<String> codes = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> codes.add(code));
+        parser.onNext("```html\n<html>\n");
+        parser.onComplete();
+        Assertions.assertTrue(codes.isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package com.zw.zwaicodemother.core.stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+public class ChunkCoalescerTest {
+
+    @Test
+    void coalesceBySize() {
+        List<String> frames = ChunkCoalescer.coalesce(Flux.just("a", "b", "c", "d", "e"), 2, Duration.ofSeconds(10), 100)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        // 上游结束时剩余内容立即发送，不等待超时
+        Assertions.assertEquals(List.of("ab", "cd", "e"), frames);
+    }
+
+    @Test
+    void coalesceByTime() {
+        Flux<String> source = Flux.concat(Flux.just("a", "b"), Flux.just("c").delaySubscription(Duration.ofMillis(300)));
+        List<String> frames = ChunkCoalescer.coalesce(source, 100, Duration.ofMillis(20), 100)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        Assertions.assertEquals(List.of("ab", "c"), frames);
+    }
+
+    @Test
+    void errorWhenPendingOverflow() {
+        Flux<String> frames = ChunkCoalescer.coalesce(Flux.just("abc", "def"), 100, Duration.ofSeconds(10), 4);
+        Throwable error = Assertions.assertThrows(Throwable.class, () -> frames.blockLast(Duration.ofSeconds(5)));
+        Assertions.assertTrue(Exceptions.isOverflow(Exceptions.unwrap(error)));
+    }
+}
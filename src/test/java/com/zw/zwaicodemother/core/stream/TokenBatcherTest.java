@@ -0,0 +1,36 @@
+package com.zw.zwaicodemother.core.stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TokenBatcherTest {
+
+    @Test
+    void batchBySizeAndFlushOnClose() {
+        List<String> batches = new CopyOnWriteArrayList<>();
+        TokenBatcher batcher = new TokenBatcher(4, Duration.ofSeconds(10), batches::add);
+        for (String token : new String[]{"ab", "cd", "e", "f"}) {
+            batcher.append(token);
+        }
+        batcher.flush();
+        batcher.append("g");
+        batcher.close();
+        batcher.append("ignored");
+        Assertions.assertEquals(List.of("abcd", "ef", "g"), batches);
+    }
+
+    @Test
+    void batchByTime() throws InterruptedException {
+        List<String> batches = new CopyOnWriteArrayList<>();
+        TokenBatcher batcher = new TokenBatcher(100, Duration.ofMillis(20), batches::add);
+        batcher.append("a");
+        batcher.append("b");
+        Thread.sleep(300);
+        Assertions.assertEquals(List.of("ab"), batches);
+        batcher.discard();
+    }
+}
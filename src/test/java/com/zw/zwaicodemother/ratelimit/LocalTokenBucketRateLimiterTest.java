@@ -0,0 +1,50 @@
+package com.zw.zwaicodemother.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class LocalTokenBucketRateLimiterTest {
+
+    @Test
+    void burstThenReject() {
+        LocalTokenBucketRateLimiter rateLimiter = new LocalTokenBucketRateLimiter();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(rateLimiter.tryAcquire("user:1", 3, 1, 60));
+        }
+        Assertions.assertFalse(rateLimiter.tryAcquire("user:1", 3, 1, 60));
+        // 不同 key 互不影响
+        Assertions.assertTrue(rateLimiter.tryAcquire("user:2", 3, 1, 60));
+    }
+
+    @Test
+    void refillByElapsedTime() {
+        long start = System.nanoTime();
+        LocalTokenBucketRateLimiter.TokenBucket bucket = new LocalTokenBucketRateLimiter.TokenBucket(1);
+        // 每秒补充 1 个令牌
+        double refillPerNano = 1.0 / TimeUnit.SECONDS.toNanos(1);
+        Assertions.assertTrue(bucket.tryConsume(1, refillPerNano, start));
+        Assertions.assertFalse(bucket.tryConsume(1, refillPerNano, start + TimeUnit.MILLISECONDS.toNanos(500)));
+        Assertions.assertTrue(bucket.tryConsume(1, refillPerNano, start + TimeUnit.MILLISECONDS.toNanos(1600)));
+        // 长时间空闲后不会超过容量
+        Assertions.assertTrue(bucket.tryConsume(1, refillPerNano, start + TimeUnit.SECONDS.toNanos(100)));
+        Assertions.assertFalse(bucket.tryConsume(1, refillPerNano, start + TimeUnit.SECONDS.toNanos(100)));
+    }
+
+    @Test
+    void rejectedBucketDoesNotConsumeOthers() {
+        LocalTokenBucketRateLimiter rateLimiter = new LocalTokenBucketRateLimiter();
+        RateLimiter.Bucket user = new RateLimiter.Bucket("user:1", 3, 1, 60);
+        RateLimiter.Bucket global = new RateLimiter.Bucket("global", 1, 1, 60);
+        Assertions.assertEquals(-1, rateLimiter.tryAcquireAll(List.of(user, global)));
+        // 全局桶已空：返回被拒绝的桶下标，用户桶不扣减
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(1, rateLimiter.tryAcquireAll(List.of(user, global)));
+        }
+        Assertions.assertTrue(rateLimiter.tryAcquire("user:1", 3, 1, 60));
+        Assertions.assertTrue(rateLimiter.tryAcquire("user:1", 3, 1, 60));
+        Assertions.assertFalse(rateLimiter.tryAcquire("user:1", 3, 1, 60));
+    }
+}
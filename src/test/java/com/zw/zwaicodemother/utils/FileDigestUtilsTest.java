@@ -0,0 +1,38 @@
+package com.zw.zwaicodemother.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileDigestUtilsTest {
+
+    @Test
+    void sameContentSameDigest(@TempDir Path first, @TempDir Path second) throws IOException {
+        writeSite(first);
+        writeSite(second);
+        Assertions.assertEquals(FileDigestUtils.digestTree(first.toFile()), FileDigestUtils.digestTree(second.toFile()));
+        Assertions.assertEquals(2, FileDigestUtils.digestFiles(first.toFile()).size());
+        Assertions.assertTrue(FileDigestUtils.digestFiles(first.toFile()).containsKey("assets/style.css"));
+    }
+
+    @Test
+    void changedContentOrPathChangesDigest(@TempDir Path dir) throws IOException {
+        writeSite(dir);
+        String original = FileDigestUtils.digestTree(dir.toFile());
+        Files.writeString(dir.resolve("index.html"), "<h1>b</h1>");
+        String changed = FileDigestUtils.digestTree(dir.toFile());
+        Assertions.assertNotEquals(original, changed);
+        Files.move(dir.resolve("index.html"), dir.resolve("home.html"));
+        Assertions.assertNotEquals(changed, FileDigestUtils.digestTree(dir.toFile()));
+    }
+
+    private static void writeSite(Path dir) throws IOException {
+        Files.writeString(dir.resolve("index.html"), "<h1>a</h1>");
+        Files.createDirectories(dir.resolve("assets"));
+        Files.writeString(dir.resolve("assets/style.css"), "h1 { color: red; }");
+    }
+}
@@ -85,6 +85,12 @@ declare namespace API {
     message?: string
   }
 
+  type BaseResponseChatHistoryCursorPageVO = {
+    code?: number
+    data?: ChatHistoryCursorPageVO
+    message?: string
+  }
+
   type BaseResponsePageUserVO = {
     code?: number
     data?: PageUserVO
@@ -133,6 +139,13 @@ declare namespace API {
     lastCreateTime?: string
   }
 
+  type ChatHistoryCursorPageVO = {
+    records?: ChatHistory[]
+    hasMore?: boolean
+    nextCreateTime?: string
+    nextId?: number
+  }
+
   type chatToGenCodeParams = {
     appId: number
     message: string
@@ -166,6 +179,8 @@ declare namespace API {
     appId: number
     pageSize?: number
     lastCreateTime?: string
+    lastId?: number
+    withMessage?: boolean
   }
 
   type LoginUserVO = {